@@ -0,0 +1,111 @@
+package com.pullrefresh;
+
+import android.animation.Animator;
+import android.animation.ValueAnimator;
+import android.view.View;
+
+/**
+ * 箭头的旋转，拉动时直接按拉动比例设置角度，没有比例可用时用同一个动画转过去.
+ * <p>动画只在第一次需要时创建一次，之后反复使用，拉动的每一帧和每次翻转都不分配对象。
+ * 动画期间箭头的内容不变，放到硬件层上只改变旋转角度。</p>
+ */
+class ArrowRotator implements ValueAnimator.AnimatorUpdateListener, Animator.AnimatorListener {
+    private static final long SNAP_DURATION = 300;
+    //拉动比例超过它箭头开始翻转，到1时转完
+    private static final float FLIP_START = 0.8f;
+    /**
+     * 翻转后的角度，逆时针转180度
+     */
+    private static final float FLIPPED_ROTATION = -180;
+
+    private final View mArrow;
+    private ValueAnimator mSnapAnimator;
+    //动画期间加上了硬件层
+    private boolean isLayered;
+    private float mFromRotation;
+    private float mToRotation;
+
+    ArrowRotator(View arrow) {
+        mArrow = arrow;
+    }
+
+    /**
+     * 按拉动比例设置角度，会打断正在进行的动画
+     * @param fraction 拉动距离占触发距离的比例
+     */
+    void scrub(float fraction) {
+        cancelSnap();
+        final float flip = Math.min(1f, Math.max(0f, (fraction - FLIP_START) / (1f - FLIP_START)));
+        mArrow.setRotation(flip * FLIPPED_ROTATION);
+    }
+
+    /**
+     * 用动画转到翻转或者原来的方向，已经在那个角度时什么都不做
+     */
+    void snap(boolean flipped) {
+        final float target = flipped ? FLIPPED_ROTATION : 0;
+        if (mSnapAnimator != null && mSnapAnimator.isRunning()) {
+            if (mToRotation == target) {
+                return;
+            }
+            mSnapAnimator.cancel();
+        }
+        final float current = mArrow.getRotation();
+        if (current == target) {
+            return;
+        }
+        if (mSnapAnimator == null) {
+            mSnapAnimator = ValueAnimator.ofFloat(0f, 1f);
+            mSnapAnimator.addUpdateListener(this);
+            mSnapAnimator.addListener(this);
+        }
+        mFromRotation = current;
+        mToRotation = target;
+        mSnapAnimator.setDuration((long) (SNAP_DURATION * Math.abs(target - current) / -FLIPPED_ROTATION));
+        mSnapAnimator.start();
+    }
+
+    /**
+     * 不用动画，直接回到原来的方向
+     */
+    void reset() {
+        cancelSnap();
+        mArrow.setRotation(0);
+    }
+
+    private void cancelSnap() {
+        if (mSnapAnimator != null && mSnapAnimator.isRunning()) {
+            mSnapAnimator.cancel();
+        }
+    }
+
+    @Override
+    public void onAnimationUpdate(ValueAnimator animation) {
+        mArrow.setRotation(mFromRotation + (mToRotation - mFromRotation) * animation.getAnimatedFraction());
+    }
+
+    @Override
+    public void onAnimationStart(Animator animation) {
+        if (mArrow.getLayerType() == View.LAYER_TYPE_NONE && mArrow.isHardwareAccelerated()) {
+            mArrow.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+            isLayered = true;
+        }
+    }
+
+    @Override
+    public void onAnimationEnd(Animator animation) {
+        if (isLayered) {
+            isLayered = false;
+            mArrow.setLayerType(View.LAYER_TYPE_NONE, null);
+        }
+    }
+
+    @Override
+    public void onAnimationCancel(Animator animation) {
+        //之后会回调onAnimationEnd
+    }
+
+    @Override
+    public void onAnimationRepeat(Animator animation) {
+    }
+}
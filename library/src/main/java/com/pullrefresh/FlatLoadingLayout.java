@@ -0,0 +1,206 @@
+package com.pullrefresh;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import android.support.v4.view.ViewCompat;
+import android.util.AttributeSet;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+import android.view.View;
+import android.view.animation.AnimationUtils;
+
+/**
+ * 只有一个View的加载布局，箭头、进度圆弧和状态文字都直接画在Canvas上.
+ * <p>没有子View，拉动时只重绘不重新布局，适合低端机，用法是把Header或Footer换成
+ * {@code layout_flat_header}和{@code layout_flat_footer}。id是
+ * {@code swipe_load_more_footer}时显示成Footer的样式。</p>
+ * <p>拉动时圆弧按拉动比例画出，接近触发距离时箭头跟着比例转过来；
+ * 配合{@link PullToRefreshLayout#setEdgeTriggeredDispatch(boolean)}每帧只收到进度。</p>
+ */
+public class FlatLoadingLayout extends View implements LoadingLayout, OnPullProgressListener,
+        OnRefreshFailListener {
+    //圆弧转一圈的时间
+    private static final long SPIN_MILLIS = 1000;
+    //拉动比例超过它箭头开始翻转，到1时转完
+    private static final float FLIP_START = 0.8f;
+    private static final int INDICATOR_COLOR = 0xff666666;
+
+    private static final int STATE_RESET = 0;
+    private static final int STATE_PULL = 1;
+    private static final int STATE_RELEASE = 2;
+    private static final int STATE_REFRESHING = 3;
+    private static final int STATE_SUCCESS = 4;
+    private static final int STATE_FAIL = 5;
+
+    private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mIndicatorPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path mArrowPath = new Path();
+    private final RectF mArcBounds = new RectF();
+    private final int mDefaultHeight;
+    private final float mIndicatorMarginLeft;
+    private final float mIndicatorRadius;
+    /**
+     * 每个状态的文字和宽度，切换状态时不用再测量
+     */
+    private final String[] mTexts = new String[STATE_FAIL + 1];
+    private final float[] mTextWidths = new float[STATE_FAIL + 1];
+    private boolean isFooter;
+    private int mState = STATE_RESET;
+    private float mFraction;
+    private float mTextBaseline;
+    private float mIndicatorCenterX;
+    private float mIndicatorCenterY;
+
+    public FlatLoadingLayout(Context context) {
+        this(context, null);
+    }
+
+    public FlatLoadingLayout(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public FlatLoadingLayout(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
+        mDefaultHeight = context.getResources().getDimensionPixelSize(R.dimen.loading_layout_height);
+        mIndicatorMarginLeft = context.getResources().getDimensionPixelSize(R.dimen.dp_64);
+        mIndicatorRadius = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 12, displayMetrics);
+        mTextPaint.setColor(Color.BLACK);
+        mTextPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 16, displayMetrics));
+        mIndicatorPaint.setColor(INDICATOR_COLOR);
+        mIndicatorPaint.setStyle(Paint.Style.STROKE);
+        mIndicatorPaint.setStrokeCap(Paint.Cap.ROUND);
+        mIndicatorPaint.setStrokeJoin(Paint.Join.ROUND);
+        mIndicatorPaint.setStrokeWidth(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 2, displayMetrics));
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        final boolean footer = getId() == R.id.swipe_load_more_footer;
+        if (footer != isFooter || mTexts[STATE_PULL] == null) {
+            isFooter = footer;
+            cacheTexts();
+        }
+    }
+
+    private void cacheTexts() {
+        setText(STATE_PULL, isFooter ? R.string.pull_up_load : R.string.pull_down_refresh);
+        setText(STATE_RELEASE, isFooter ? R.string.release_load : R.string.release_refresh);
+        setText(STATE_REFRESHING, isFooter ? R.string.loading : R.string.refreshing);
+        setText(STATE_SUCCESS, isFooter ? R.string.load_success : R.string.refresh_success);
+        setText(STATE_FAIL, isFooter ? R.string.load_fail : R.string.refresh_fail);
+    }
+
+    private void setText(int state, int resId) {
+        mTexts[state] = getResources().getString(resId);
+        mTextWidths[state] = mTextPaint.measureText(mTexts[state]);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        setMeasuredDimension(getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec),
+                resolveSize(mDefaultHeight, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        final float centerY = h / 2f;
+        mTextBaseline = centerY - (mTextPaint.descent() + mTextPaint.ascent()) / 2;
+        mIndicatorCenterX = mIndicatorMarginLeft + mIndicatorRadius;
+        mIndicatorCenterY = centerY;
+        mArcBounds.set(mIndicatorCenterX - mIndicatorRadius, centerY - mIndicatorRadius,
+                mIndicatorCenterX + mIndicatorRadius, centerY + mIndicatorRadius);
+        //箭头朝下，Footer画的时候整体转180度
+        final float half = mIndicatorRadius / 2;
+        mArrowPath.reset();
+        mArrowPath.moveTo(mIndicatorCenterX, centerY - half);
+        mArrowPath.lineTo(mIndicatorCenterX, centerY + half);
+        mArrowPath.moveTo(mIndicatorCenterX - half / 2, centerY + half / 2);
+        mArrowPath.lineTo(mIndicatorCenterX, centerY + half);
+        mArrowPath.lineTo(mIndicatorCenterX + half / 2, centerY + half / 2);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (mState == STATE_RESET) {
+            return;
+        }
+        canvas.drawText(mTexts[mState], (getWidth() - mTextWidths[mState]) / 2, mTextBaseline, mTextPaint);
+        switch (mState) {
+            case STATE_PULL:
+            case STATE_RELEASE:
+                drawArrow(canvas);
+                break;
+            case STATE_REFRESHING:
+                final long now = AnimationUtils.currentAnimationTimeMillis();
+                final float start = (now % SPIN_MILLIS) * 360f / SPIN_MILLIS;
+                canvas.drawArc(mArcBounds, start, 270, false, mIndicatorPaint);
+                ViewCompat.postInvalidateOnAnimation(this);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void drawArrow(Canvas canvas) {
+        final float fraction = Math.min(mFraction, 1f);
+        canvas.drawArc(mArcBounds, -90, fraction * 360, false, mIndicatorPaint);
+        final float flip = Math.max(0f, (fraction - FLIP_START) / (1f - FLIP_START));
+        final int count = canvas.save();
+        canvas.rotate((isFooter ? 180 : 0) + flip * 180, mIndicatorCenterX, mIndicatorCenterY);
+        canvas.drawPath(mArrowPath, mIndicatorPaint);
+        canvas.restoreToCount(count);
+    }
+
+    private void setState(int state, float fraction) {
+        if (mState != state || mFraction != fraction) {
+            mState = state;
+            mFraction = fraction;
+            invalidate();
+        }
+    }
+
+    @Override
+    public void onPullProgress(float fraction) {
+        //文字跟着状态方法切换，这里只更新圆弧和箭头
+        if (mState == STATE_PULL || mState == STATE_RELEASE) {
+            setState(mState, fraction);
+        }
+    }
+
+    @Override
+    public void onPullToRefresh(float fraction) {
+        setState(STATE_PULL, fraction);
+    }
+
+    @Override
+    public void onReleaseToRefresh() {
+        setState(STATE_RELEASE, Math.max(mFraction, 1f));
+    }
+
+    @Override
+    public void onRefreshing() {
+        setState(STATE_REFRESHING, 1f);
+    }
+
+    @Override
+    public void onRefreshSuccess() {
+        setState(STATE_SUCCESS, 1f);
+    }
+
+    @Override
+    public void onRefreshFail() {
+        setState(STATE_FAIL, 1f);
+    }
+
+    @Override
+    public void onReset() {
+        setState(STATE_RESET, 0f);
+    }
+}
@@ -0,0 +1,82 @@
+package com.pullrefresh;
+
+import android.content.Context;
+import android.support.v4.view.ViewCompat;
+import android.view.View;
+import android.widget.OverScroller;
+
+/**
+ * 内容开始惯性滑动后，每一帧检查它有没有滑到头，到头时把剩下的速度交出去.
+ * <p>内容的惯性用一个OverScroller按同样的摩擦力模拟，所以不需要内容本身报告速度，
+ * ListView这种不支持嵌套滑动的View也可以用。</p>
+ */
+class FlingEdgeWatcher implements Runnable {
+
+    interface Callback {
+        /**
+         * @param direction 小于0向上(朝向头部)，大于0向下(朝向底部)
+         * @return 内容这个方向还能不能滚动
+         */
+        boolean canScroll(int direction);
+
+        /**
+         * 内容滑到头了
+         * @param velocity 剩下的速度，单位px/s，方向和direction一致
+         */
+        void onEdgeReached(float velocity);
+    }
+
+    private final View mView;
+    private final Callback mCallback;
+    private final OverScroller mScroller;
+    private int mDirection;
+    private boolean mRunning;
+
+    FlingEdgeWatcher(Context context, View view, Callback callback) {
+        mView = view;
+        mCallback = callback;
+        mScroller = new OverScroller(context);
+    }
+
+    /**
+     * @param velocity 内容滚动的速度，单位px/s，大于0向下滚动(朝向底部)
+     */
+    void start(float velocity) {
+        stop();
+        if (velocity == 0) {
+            return;
+        }
+        mDirection = velocity > 0 ? 1 : -1;
+        mScroller.fling(0, 0, 0, (int) velocity, 0, 0, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        mRunning = true;
+        ViewCompat.postOnAnimation(mView, this);
+    }
+
+    void stop() {
+        if (!mRunning) {
+            return;
+        }
+        mRunning = false;
+        mScroller.abortAnimation();
+        mView.removeCallbacks(this);
+    }
+
+    @Override
+    public void run() {
+        if (!mRunning) {
+            return;
+        }
+        if (!mScroller.computeScrollOffset()) {
+            //惯性在到头之前就停了
+            mRunning = false;
+            return;
+        }
+        if (!mCallback.canScroll(mDirection)) {
+            float velocity = mScroller.getCurrVelocity() * mDirection;
+            stop();
+            mCallback.onEdgeReached(velocity);
+            return;
+        }
+        ViewCompat.postOnAnimation(mView, this);
+    }
+}
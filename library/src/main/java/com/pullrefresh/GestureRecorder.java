@@ -0,0 +1,71 @@
+package com.pullrefresh;
+
+import android.os.SystemClock;
+import android.view.MotionEvent;
+
+/**
+ * 录制PullToRefreshLayout收到的触摸事件和嵌套滑动回调，用{@link GestureReplayer}回放.
+ * <p>通过{@link PullToRefreshLayout#setGestureRecorder(GestureRecorder)}设置，
+ * 录制的结果用{@link GestureTrace#writeTo(java.io.OutputStream)}保存，
+ * 这样QA设备上真实的拉动可以变成JVM上可重复的测试。
+ * 每个触摸事件记录所有手指的id和x、y坐标，以及批量送来的历史采样点，多指和按帧合并、预测手指位置这类
+ * 依赖历史采样点的处理都能原样回放。</p>
+ */
+public final class GestureRecorder {
+    private final GestureTrace mTrace = new GestureTrace();
+    private boolean mRecording;
+
+    /**
+     * 清空之前的记录，开始录制
+     */
+    public void start() {
+        mTrace.clear();
+        mRecording = true;
+    }
+
+    /**
+     * 停止录制
+     * @return 录制的事件
+     */
+    public GestureTrace stop() {
+        mRecording = false;
+        return mTrace;
+    }
+
+    public boolean isRecording() {
+        return mRecording;
+    }
+
+    public GestureTrace getTrace() {
+        return mTrace;
+    }
+
+    void onTouchEvent(MotionEvent ev) {
+        if (!mRecording) {
+            return;
+        }
+        final int pointerCount = ev.getPointerCount();
+        final int historySize = ev.getHistorySize();
+        mTrace.beginTouch(ev.getEventTime(), ev.getAction());
+        for (int p = 0; p < pointerCount; p++) {
+            mTrace.addPointer(ev.getPointerId(p));
+        }
+        for (int h = 0; h < historySize; h++) {
+            mTrace.addSample(ev.getHistoricalEventTime(h));
+            for (int p = 0; p < pointerCount; p++) {
+                mTrace.addPosition(ev.getHistoricalX(p, h), ev.getHistoricalY(p, h));
+            }
+        }
+        mTrace.addSample(ev.getEventTime());
+        for (int p = 0; p < pointerCount; p++) {
+            mTrace.addPosition(ev.getX(p), ev.getY(p));
+        }
+        mTrace.endTouch();
+    }
+
+    void onNestedEvent(int kind, int arg0, int arg1) {
+        if (mRecording) {
+            mTrace.addNested(SystemClock.uptimeMillis(), kind, arg0, arg1);
+        }
+    }
+}
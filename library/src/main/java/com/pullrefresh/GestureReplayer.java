@@ -0,0 +1,181 @@
+package com.pullrefresh;
+
+import android.os.SystemClock;
+import android.support.v4.view.ViewCompat;
+import android.view.InputDevice;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * 把{@link GestureRecorder}录制的事件按原来的时间间隔重新交给PullToRefreshLayout，
+ * 每个事件之后记录偏移量、头部和底部的状态以及处理这个事件的耗时.
+ * <p>在Robolectric里使用时，{@link Clock}负责推进主线程的时间，让平滑滚动等动画按帧执行。
+ * 触摸事件按录制时的所有手指和历史采样点重新组装，多指的ACTION_POINTER_DOWN/UP也会回放。</p>
+ */
+public final class GestureReplayer {
+
+    /**
+     * 推进时间，回放每个事件之前调用
+     */
+    public interface Clock {
+        /**
+         * @param uptimeMillis 下一个事件的时间，和SystemClock.uptimeMillis()同一个时间基准
+         */
+        void advanceTo(long uptimeMillis);
+    }
+
+    private final PullToRefreshLayout mLayout;
+    private final Clock mClock;
+    private final int[] mConsumed = new int[2];
+    //组装MotionEvent用的手指数组，按需要的手指数扩大，之后反复使用
+    private MotionEvent.PointerProperties[] mProperties = new MotionEvent.PointerProperties[0];
+    private MotionEvent.PointerCoords[] mCoords = new MotionEvent.PointerCoords[0];
+    private int[] mOffsets = new int[0];
+    private int[] mPullDownStates = new int[0];
+    private int[] mPullUpStates = new int[0];
+    private long[] mEventNanos = new long[0];
+    private int mSize;
+
+    public GestureReplayer(PullToRefreshLayout layout, Clock clock) {
+        mLayout = layout;
+        mClock = clock;
+    }
+
+    /**
+     * 回放，之前的结果会被清空
+     */
+    public void replay(GestureTrace trace) {
+        final int size = trace.size();
+        mOffsets = new int[size];
+        mPullDownStates = new int[size];
+        mPullUpStates = new int[size];
+        mEventNanos = new long[size];
+        mSize = size;
+        if (size == 0) {
+            return;
+        }
+        final long shift = SystemClock.uptimeMillis() - trace.getTime(0);
+        final PullEngine engine = mLayout.getEngine();
+        final View target = mLayout.getTarget();
+        long downTime = 0;
+        for (int i = 0; i < size; i++) {
+            final long time = trace.getTime(i) + shift;
+            mClock.advanceTo(time);
+            final int kind = trace.getKind(i);
+            final long start = System.nanoTime();
+            if (kind == GestureTrace.TOUCH) {
+                if ((trace.getArg0(i) & MotionEvent.ACTION_MASK) == MotionEvent.ACTION_DOWN) {
+                    downTime = time;
+                }
+                MotionEvent event = obtainTouch(trace, i, downTime, shift);
+                mLayout.dispatchTouchEvent(event);
+                event.recycle();
+            } else {
+                replayNested(kind, trace.getArg0(i), trace.getArg1(i), target);
+            }
+            mEventNanos[i] = System.nanoTime() - start;
+            mOffsets[i] = engine.getOffset();
+            mPullDownStates[i] = engine.getPullDownState();
+            mPullUpStates[i] = engine.getPullUpState();
+        }
+    }
+
+    /**
+     * 按录制的手指和采样点组装MotionEvent，最早的采样点创建事件，之后的用addBatch()加上去
+     */
+    private MotionEvent obtainTouch(GestureTrace trace, int index, long downTime, long shift) {
+        final int pointerCount = trace.getPointerCount(index);
+        ensurePointers(pointerCount);
+        for (int p = 0; p < pointerCount; p++) {
+            mProperties[p].clear();
+            mProperties[p].id = trace.getPointerId(index, p);
+            mProperties[p].toolType = MotionEvent.TOOL_TYPE_FINGER;
+        }
+        setCoords(trace, index, 0, pointerCount);
+        final MotionEvent event = MotionEvent.obtain(downTime, trace.getSampleTime(index, 0) + shift,
+                trace.getArg0(index), pointerCount, mProperties, mCoords,
+                0, 0, 1f, 1f, 0, 0, InputDevice.SOURCE_TOUCHSCREEN, 0);
+        final int history = trace.getHistorySize(index);
+        for (int s = 1; s <= history; s++) {
+            setCoords(trace, index, s, pointerCount);
+            event.addBatch(trace.getSampleTime(index, s) + shift, mCoords, 0);
+        }
+        return event;
+    }
+
+    private void setCoords(GestureTrace trace, int index, int sample, int pointerCount) {
+        for (int p = 0; p < pointerCount; p++) {
+            final MotionEvent.PointerCoords coords = mCoords[p];
+            coords.clear();
+            coords.x = trace.getX(index, sample, p);
+            coords.y = trace.getY(index, sample, p);
+            coords.pressure = 1f;
+            coords.size = 1f;
+        }
+    }
+
+    private void ensurePointers(int pointerCount) {
+        if (mProperties.length >= pointerCount) {
+            return;
+        }
+        mProperties = new MotionEvent.PointerProperties[pointerCount];
+        mCoords = new MotionEvent.PointerCoords[pointerCount];
+        for (int p = 0; p < pointerCount; p++) {
+            mProperties[p] = new MotionEvent.PointerProperties();
+            mCoords[p] = new MotionEvent.PointerCoords();
+        }
+    }
+
+    private void replayNested(int kind, int arg0, int arg1, View target) {
+        switch (kind) {
+            case GestureTrace.NESTED_ACCEPT:
+                if (mLayout.onStartNestedScroll(target, target, ViewCompat.SCROLL_AXIS_VERTICAL)) {
+                    mLayout.onNestedScrollAccepted(target, target, ViewCompat.SCROLL_AXIS_VERTICAL);
+                }
+                break;
+            case GestureTrace.NESTED_PRE_SCROLL:
+                mConsumed[0] = 0;
+                mConsumed[1] = 0;
+                mLayout.onNestedPreScroll(target, 0, arg0, mConsumed);
+                break;
+            case GestureTrace.NESTED_SCROLL:
+                mLayout.onNestedScroll(target, 0, arg0, 0, arg1);
+                break;
+            case GestureTrace.NESTED_FLING:
+                mLayout.onNestedFling(target, 0, arg0, arg1 != 0);
+                break;
+            case GestureTrace.NESTED_STOP:
+                mLayout.onStopNestedScroll(target);
+                break;
+        }
+    }
+
+    /**
+     * @return 回放的事件数
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @return 第index个事件之后的偏移量，小于0是头部拉出来的距离
+     */
+    public int getOffset(int index) {
+        return mOffsets[index];
+    }
+
+    public int getPullDownState(int index) {
+        return mPullDownStates[index];
+    }
+
+    public int getPullUpState(int index) {
+        return mPullUpStates[index];
+    }
+
+    /**
+     * @return 处理第index个事件的耗时，单位纳秒
+     */
+    public long getEventNanos(int index) {
+        return mEventNanos[index];
+    }
+}
@@ -0,0 +1,58 @@
+package com.pullrefresh;
+
+import android.view.View;
+
+/**
+ * 移动中的View放到硬件层上，停下后去掉.
+ * <p>只管理自己加上的层，本来就有层的View不动。每个位置同时只对应一个View。</p>
+ */
+class HardwareLayers {
+    static final int TARGET = 0;
+    static final int HEADER = 1;
+    static final int FOOTER = 2;
+
+    //已经加上硬件层的View，null表示这个位置没有
+    private final View[] mLayered = new View[3];
+
+    /**
+     * @param layered 是否放到硬件层上，View的内容每帧都在变化时传false
+     */
+    void set(int slot, View view, boolean layered) {
+        final View current = mLayered[slot];
+        if (layered && view != null) {
+            if (current == view) {
+                return;
+            }
+            release(slot);
+            if (view.getLayerType() == View.LAYER_TYPE_NONE && view.isHardwareAccelerated()) {
+                view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+                mLayered[slot] = view;
+            }
+        } else if (current != null) {
+            release(slot);
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < mLayered.length; i++) {
+            release(i);
+        }
+    }
+
+    boolean isEmpty() {
+        for (View view : mLayered) {
+            if (view != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void release(int slot) {
+        final View view = mLayered[slot];
+        if (view != null) {
+            mLayered[slot] = null;
+            view.setLayerType(View.LAYER_TYPE_NONE, null);
+        }
+    }
+}
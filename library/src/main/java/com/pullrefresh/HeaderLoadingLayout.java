@@ -13,14 +13,18 @@ import android.widget.TextView;
 /**
  * 它默认是显示箭头式样的布局.
  */
-public class HeaderLoadingLayout extends RelativeLayout implements LoadingLayout{
+public class HeaderLoadingLayout extends RelativeLayout implements LoadingLayout, OnPullProgressListener,
+        OnRefreshFailListener {
 
     private static final String TAG = HeaderLoadingLayout.class.getSimpleName();
     private TextView tv_state;
     private ProgressBar pb_loading;
     private ImageView iv_arrow;
     private DisplayMetrics displayMetrics;
-    private boolean arrowDown = true;
+    private ArrowRotator arrowRotator;
+    //占位时的高度，和布局文件里的一致
+    private final int placeholderHeight;
+    private boolean isInflated;
 
     public HeaderLoadingLayout(Context context) {
         this(context, null);
@@ -32,40 +36,68 @@ public class HeaderLoadingLayout extends RelativeLayout implements LoadingLayout
 
     public HeaderLoadingLayout(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        init(context);
+        displayMetrics = context.getResources().getDisplayMetrics();
+        placeholderHeight = context.getResources().getDimensionPixelSize(R.dimen.loading_layout_height);
     }
 
-    private void init(Context context) {
-        displayMetrics = context.getResources().getDisplayMetrics();
-        LayoutInflater.from(context).inflate(R.layout.layout_header_loading, this, true);
+    /**
+     * 创建真正的布局。构造时只是一个空的占位，第一次显示时才创建，
+     * 也可以在空闲时提前调用.
+     */
+    public void ensureInflated() {
+        if (isInflated) {
+            return;
+        }
+        isInflated = true;
+        LayoutInflater.from(getContext()).inflate(R.layout.layout_header_loading, this, true);
         tv_state = (TextView) findViewById(R.id.tv_state);
         pb_loading = (ProgressBar) findViewById(R.id.pb_loading);
         iv_arrow = (ImageView) findViewById(R.id.iv_arrow);
-        onReset();
+        arrowRotator = new ArrowRotator(iv_arrow);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (isInflated) {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        } else {
+            //占位的高度和真正的布局一样，创建后不会改变下拉的距离
+            setMeasuredDimension(getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec),
+                    resolveSize(placeholderHeight, heightMeasureSpec));
+        }
+    }
+
+    @Override
+    public void onPullProgress(float fraction) {
+        if (isInflated && iv_arrow.getVisibility() == VISIBLE) {
+            arrowRotator.scrub(fraction);
+        }
     }
 
     @Override
     public void onPullToRefresh(float fraction) {
         Log.d(TAG, "onPullToRefresh");
+        ensureInflated();
         tv_state.setText(R.string.pull_down_refresh);
         pb_loading.setVisibility(GONE);
         iv_arrow.setVisibility(VISIBLE);
-//        iv_arrow.animate().scaleX(fraction).scaleY(fraction).setDuration(100).start();
-        rotationArrowDown();
+        arrowRotator.scrub(fraction);
     }
 
     @Override
     public void onReleaseToRefresh() {
         Log.d(TAG, "onReleaseToRefresh");
+        ensureInflated();
         tv_state.setText(R.string.release_refresh);
         pb_loading.setVisibility(GONE);
         iv_arrow.setVisibility(VISIBLE);
-        rotationArrowUp();
+        arrowRotator.snap(true);
     }
 
     @Override
     public void onRefreshing() {
         Log.d(TAG, "onRefreshing");
+        ensureInflated();
         tv_state.setText(R.string.refreshing);
         pb_loading.setVisibility(VISIBLE);
         iv_arrow.setVisibility(GONE);
@@ -73,31 +105,29 @@ public class HeaderLoadingLayout extends RelativeLayout implements LoadingLayout
 
     @Override
     public void onRefreshSuccess() {
+        ensureInflated();
         tv_state.setText(R.string.refresh_success);
         pb_loading.setVisibility(GONE);
         iv_arrow.setVisibility(GONE);
     }
 
     @Override
-    public void onReset() {
-        Log.d(TAG, "onReset");
-        tv_state.setText(null);
+    public void onRefreshFail() {
+        ensureInflated();
+        tv_state.setText(R.string.refresh_fail);
         pb_loading.setVisibility(GONE);
         iv_arrow.setVisibility(GONE);
-        rotationArrowDown();
-    }
-
-    private void rotationArrowDown() {
-        if(!arrowDown) {
-            arrowDown = true;
-            ImageViewRotationHelper.rotateReverseObject(iv_arrow);
-        }
     }
 
-    private void rotationArrowUp() {
-        if(arrowDown) {
-            arrowDown = false;
-            ImageViewRotationHelper.rotateObject(iv_arrow);
+    @Override
+    public void onReset() {
+        Log.d(TAG, "onReset");
+        if (!isInflated) {
+            return;
         }
+        tv_state.setText(null);
+        pb_loading.setVisibility(GONE);
+        iv_arrow.setVisibility(GONE);
+        arrowRotator.reset();
     }
 }
@@ -28,6 +28,15 @@ public interface IPullToRefresh {
 
     boolean isScrollLoadEnabled();
 
+    /**
+     * 设置拉动的阻力曲线，默认是线性的
+     * @param curve 见{@link ResistanceCurve#linear(float)}、{@link ResistanceCurve#rubberBand(float, float)}
+     *              和{@link ResistanceCurve#logarithmic(float, float)}
+     */
+    void setResistanceCurve(ResistanceCurve curve);
+
+    ResistanceCurve getResistanceCurve();
+
     /**
      * 刷新监听器
      * @param refreshListener
@@ -36,6 +45,11 @@ public interface IPullToRefresh {
 
     void setOnLoadMoreListener(OnLoadMoreListener loadMoreListener);
 
+    /**
+     * 异步刷新的监听器，设置后代替{@link OnRefreshListener}
+     */
+    void setOnAsyncRefreshListener(OnAsyncRefreshListener refreshListener);
+
     /**
      * 下拉刷新完成
      */
@@ -46,6 +60,50 @@ public interface IPullToRefresh {
      */
     void setPullUpRefreshComplete();
 
+    /**
+     * 某次下拉刷新完成，请求号在回调里用{@link #getRefreshToken()}取得
+     * @return false表示这次刷新已经过期，结果应该丢掉
+     */
+    boolean setPullDownRefreshComplete(int token);
+
+    /**
+     * 某次下拉刷新失败，显示刷新失败后复位
+     * @return false表示这次刷新已经过期
+     */
+    boolean setPullDownRefreshFailed(int token);
+
+    /**
+     * 某次上拉加载完成，请求号在回调里用{@link #getLoadMoreToken()}取得
+     * @return false表示这次加载已经被取消或者过期，结果应该丢掉
+     */
+    boolean setPullUpRefreshComplete(int token);
+
+    /**
+     * 某次上拉加载失败，显示加载失败后收起底部
+     * @return false表示这次加载已经被取消或者过期
+     */
+    boolean setPullUpRefreshFailed(int token);
+
+    /**
+     * @return 正在进行的刷新的请求号，没有时返回0
+     */
+    int getRefreshToken();
+
+    /**
+     * @return 正在进行的加载更多的请求号，没有时返回0
+     */
+    int getLoadMoreToken();
+
+    /**
+     * 判断请求是否还有效，结果回来后先检查，避免过期的数据追加到列表里
+     */
+    boolean isTokenActive(int token);
+
+    /**
+     * 取消正在进行的加载更多。开始下拉刷新时会自动取消
+     */
+    void cancelLoadMore();
+
     /**
      * 设置更新标签
      */
@@ -0,0 +1,49 @@
+package com.pullrefresh;
+
+import android.view.View;
+
+/**
+ * 缓存Header或Footer的测量结果，列表频繁requestLayout时不用每次都测量看不见的View.
+ * <p>宽度不变、View自己没有请求布局、高度上限的变化不影响结果时直接用上次的尺寸；
+ * 完全藏在屏幕外并且空闲时，即使View请求了布局也先跳过，连同layout一起推迟到它要显示的时候。</p>
+ */
+class LoadingMeasureCache {
+    private int mWidthSpec;
+    private int mMaxHeight;
+    private boolean isMeasured;
+    //空闲时跳过了一次需要的测量，显示之前要重新布局
+    private boolean isSkipped;
+
+    /**
+     * @param idle View完全在屏幕外，也没有在刷新
+     * @return 是否测量了，测量后要更新触发距离
+     */
+    boolean measure(View view, int widthSpec, int maxHeight, boolean idle) {
+        if (isMeasured && widthSpec == mWidthSpec) {
+            if (idle) {
+                if (view.isLayoutRequested() || maxHeight != mMaxHeight) {
+                    isSkipped = true;
+                }
+                return false;
+            }
+            if (!isSkipped && !view.isLayoutRequested() && (maxHeight == mMaxHeight
+                    //上次没有被上限截断，上限变了也不影响
+                    || view.getMeasuredHeight() < Math.min(maxHeight, mMaxHeight))) {
+                return false;
+            }
+        }
+        view.measure(widthSpec, View.MeasureSpec.makeMeasureSpec(maxHeight, View.MeasureSpec.AT_MOST));
+        mWidthSpec = widthSpec;
+        mMaxHeight = maxHeight;
+        isMeasured = true;
+        isSkipped = false;
+        return true;
+    }
+
+    /**
+     * 跳过测量时也要跳过layout，否则View的请求布局标记被清掉，之后就不会再测量了
+     */
+    boolean isSkipped() {
+        return isSkipped;
+    }
+}
@@ -0,0 +1,11 @@
+package com.pullrefresh;
+
+
+/**
+ * 异步刷新的监听者，刷新结束时通过{@link RefreshHandle}通知成功或失败.
+ * <p>设置了{@link PullToRefreshLayout#setRefreshTimeout(long)}时，超时还没有结果就按失败处理，
+ * 之后再调用handle会被忽略。</p>
+ */
+public interface OnAsyncRefreshListener {
+    void onPullDownToRefresh(PullToRefreshLayout refreshView, RefreshHandle handle);
+}
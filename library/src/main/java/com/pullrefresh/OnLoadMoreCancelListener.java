@@ -0,0 +1,11 @@
+package com.pullrefresh;
+
+
+/**
+ * 加载更多被取消的监听者，比如加载时开始了下拉刷新.
+ * <p>收到回调后可以取消对应的网络请求，这个请求号的结果再交给
+ * {@link PullToRefreshLayout#setPullUpRefreshComplete(int)}也会被丢掉。</p>
+ */
+public interface OnLoadMoreCancelListener extends OnLoadMoreListener {
+    void onLoadMoreCancelled(PullToRefreshLayout refreshView, int token);
+}
@@ -0,0 +1,14 @@
+package com.pullrefresh;
+
+/**
+ * 拉动进度监听者，Header或Footer实现它就能在拉动过程中连续收到进度.
+ * <p>只在{@link PullToRefreshLayout#setEdgeTriggeredDispatch(boolean)}打开时回调，
+ * 这时{@link LoadingLayout}的状态方法只在状态切换时调用一次。
+ * 这个方法每一帧都会调用，里面不要setText()、setVisibility()这类会引起重新布局的操作。</p>
+ */
+public interface OnPullProgressListener {
+    /**
+     * @param fraction 拉动距离占触发距离的比例，0-1之间
+     */
+    void onPullProgress(float fraction);
+}
@@ -0,0 +1,12 @@
+package com.pullrefresh;
+
+/**
+ * 刷新失败监听者，Header或Footer实现它就能显示刷新或加载失败.
+ * <p>没有实现时，失败直接按{@link LoadingLayout#onReset()}处理，之后会自动复位。</p>
+ */
+public interface OnRefreshFailListener {
+    /**
+     * 刷新失败或者超时，之后会自动复位
+     */
+    void onRefreshFail();
+}
@@ -0,0 +1,94 @@
+package com.pullrefresh;
+
+/**
+ * 一次拉动手势的性能数据，字段都是基本类型，对象会被复用，收集时不分配内存.
+ */
+public final class PullMetrics {
+    /**手指直接拖动*/
+    public static final int SOURCE_TOUCH = 0;
+    /**子View的嵌套滑动*/
+    public static final int SOURCE_NESTED = 1;
+    /**下拉刷新*/
+    public static final int REQUEST_REFRESH = 0;
+    /**加载更多*/
+    public static final int REQUEST_LOAD_MORE = 1;
+
+    int source;
+    long downToFirstMoveNanos = -1;
+    int moveEventCount;
+    int dragFrames;
+    int dragExpectedFrames;
+    int settleFrames;
+    int settleExpectedFrames;
+    long loadingLayoutNanos;
+
+    PullMetrics() {
+    }
+
+    void reset(int source) {
+        this.source = source;
+        downToFirstMoveNanos = -1;
+        moveEventCount = 0;
+        dragFrames = 0;
+        dragExpectedFrames = 0;
+        settleFrames = 0;
+        settleExpectedFrames = 0;
+        loadingLayoutNanos = 0;
+    }
+
+    /**
+     * @return {@link #SOURCE_TOUCH}或{@link #SOURCE_NESTED}
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * @return 从按下到头部或底部第一次移动的时间，单位纳秒，没有移动时返回-1
+     */
+    public long getDownToFirstMoveNanos() {
+        return downToFirstMoveNanos;
+    }
+
+    /**
+     * @return 处理的移动事件数，包括嵌套滑动的回调
+     */
+    public int getMoveEventCount() {
+        return moveEventCount;
+    }
+
+    /**
+     * @return 拖动过程中实际绘制的帧数
+     */
+    public int getDragFrames() {
+        return dragFrames;
+    }
+
+    /**
+     * @return 按屏幕刷新率，拖动过程中应该绘制的帧数
+     */
+    public int getDragExpectedFrames() {
+        return dragExpectedFrames;
+    }
+
+    /**
+     * @return 松手后平滑滚动实际绘制的帧数
+     */
+    public int getSettleFrames() {
+        return settleFrames;
+    }
+
+    /**
+     * @return 按屏幕刷新率，松手后平滑滚动应该绘制的帧数
+     */
+    public int getSettleExpectedFrames() {
+        return settleExpectedFrames;
+    }
+
+    /**
+     * @return 花在Header和Footer回调(LoadingLayout、OnPullProgressListener)里的时间，单位纳秒
+     */
+    public long getLoadingLayoutNanos() {
+        return loadingLayoutNanos;
+    }
+}
@@ -0,0 +1,21 @@
+package com.pullrefresh;
+
+
+/**
+ * 拉动的性能数据监听者，可以接到线上的性能监控里，找出慢的设备和慢的接口.
+ * <p>回调都在主线程，{@link PullMetrics}对象会被复用，需要保存时自己拷贝字段。</p>
+ */
+public interface PullMetricsListener {
+    /**
+     * 一次拉动手势结束，包括松手后的平滑滚动
+     */
+    void onGestureMetrics(PullMetrics metrics);
+
+    /**
+     * 一次刷新或加载更多结束，从触发算到setPull*Complete，取消的请求不回调
+     * @param type {@link PullMetrics#REQUEST_REFRESH}或{@link PullMetrics#REQUEST_LOAD_MORE}
+     * @param roundTripNanos 耗时，单位纳秒
+     * @param success 是否成功，失败或超时为false
+     */
+    void onRequestMetrics(int type, long roundTripNanos, boolean success);
+}
@@ -0,0 +1,171 @@
+package com.pullrefresh;
+
+import android.view.ViewTreeObserver;
+
+/**
+ * 收集{@link PullMetrics}，没有设置监听者时所有方法直接返回.
+ * <p>一次手势分两段：从头部或底部第一次移动到松手是拖动，松手到平滑滚动结束是回弹，
+ * 每段按经过的时间和刷新率算出应该绘制的帧数，和实际的onPreDraw次数对比。</p>
+ */
+class PullMetricsTracker implements ViewTreeObserver.OnPreDrawListener {
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = 16666667L;
+
+    private static final int IDLE = 0;
+    //按下了，头部还没有移动
+    private static final int DOWN = 1;
+    private static final int DRAG = 2;
+    private static final int SETTLE = 3;
+
+    private final PullMetrics mMetrics = new PullMetrics();
+    private PullMetricsListener mListener;
+    private long mFrameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+    private int mPhase = IDLE;
+    private long mDownNanos;
+    private long mPhaseStartNanos;
+    //请求的开始时间，0表示没有
+    private long mRefreshStartNanos;
+    private long mLoadStartNanos;
+
+    void setListener(PullMetricsListener listener) {
+        mListener = listener;
+        mPhase = IDLE;
+    }
+
+    boolean isEnabled() {
+        return mListener != null;
+    }
+
+    void setRefreshRate(float refreshRate) {
+        mFrameIntervalNanos = refreshRate > 0
+                ? (long) (1e9f / refreshRate) : DEFAULT_FRAME_INTERVAL_NANOS;
+    }
+
+    void onGestureStart(int source) {
+        if (mListener == null) {
+            return;
+        }
+        final long now = System.nanoTime();
+        deliver(now);
+        mMetrics.reset(source);
+        mDownNanos = now;
+        mPhase = DOWN;
+    }
+
+    void onMoveEvent() {
+        if (mPhase == DOWN || mPhase == DRAG) {
+            mMetrics.moveEventCount++;
+        }
+    }
+
+    /**
+     * 头部或底部移动了
+     */
+    void onOffsetChanged() {
+        if (mPhase == DOWN) {
+            final long now = System.nanoTime();
+            mMetrics.downToFirstMoveNanos = now - mDownNanos;
+            mPhaseStartNanos = now;
+            mPhase = DRAG;
+        }
+    }
+
+    /**
+     * 松手
+     * @param settling 松手后是否开始了平滑滚动
+     */
+    void onGestureEnd(boolean settling) {
+        if (mPhase == DOWN) {
+            //只滚动了内容，不算一次拉动
+            mPhase = IDLE;
+            return;
+        }
+        if (mPhase != DRAG) {
+            return;
+        }
+        final long now = System.nanoTime();
+        mMetrics.dragExpectedFrames = expectedFrames(now - mPhaseStartNanos);
+        if (settling) {
+            mPhaseStartNanos = now;
+            mPhase = SETTLE;
+        } else {
+            deliver(now);
+        }
+    }
+
+    /**
+     * 平滑滚动结束或者被打断
+     */
+    void onSettleEnd() {
+        if (mPhase == SETTLE) {
+            deliver(System.nanoTime());
+        }
+    }
+
+    /**
+     * @return 回调开始的时间，传给{@link #endCallback(long)}
+     */
+    long beginCallback() {
+        return mPhase != IDLE ? System.nanoTime() : 0;
+    }
+
+    void endCallback(long startNanos) {
+        if (startNanos != 0 && mPhase != IDLE) {
+            mMetrics.loadingLayoutNanos += System.nanoTime() - startNanos;
+        }
+    }
+
+    void onRequestStarted(int type) {
+        if (mListener == null) {
+            return;
+        }
+        if (type == PullMetrics.REQUEST_REFRESH) {
+            mRefreshStartNanos = System.nanoTime();
+        } else {
+            mLoadStartNanos = System.nanoTime();
+        }
+    }
+
+    void onRequestFinished(int type, boolean success) {
+        final long start = type == PullMetrics.REQUEST_REFRESH ? mRefreshStartNanos : mLoadStartNanos;
+        if (mListener == null || start == 0) {
+            return;
+        }
+        onRequestCancelled(type);
+        mListener.onRequestMetrics(type, System.nanoTime() - start, success);
+    }
+
+    void onRequestCancelled(int type) {
+        if (type == PullMetrics.REQUEST_REFRESH) {
+            mRefreshStartNanos = 0;
+        } else {
+            mLoadStartNanos = 0;
+        }
+    }
+
+    @Override
+    public boolean onPreDraw() {
+        if (mPhase == DRAG) {
+            mMetrics.dragFrames++;
+        } else if (mPhase == SETTLE) {
+            mMetrics.settleFrames++;
+        }
+        return true;
+    }
+
+    private int expectedFrames(long durationNanos) {
+        return (int) ((durationNanos + mFrameIntervalNanos / 2) / mFrameIntervalNanos);
+    }
+
+    private void deliver(long now) {
+        if (mPhase == DRAG) {
+            mMetrics.dragExpectedFrames = expectedFrames(now - mPhaseStartNanos);
+        } else if (mPhase == SETTLE) {
+            mMetrics.settleExpectedFrames = expectedFrames(now - mPhaseStartNanos);
+        }
+        final boolean pending = mPhase == DRAG || mPhase == SETTLE;
+        mPhase = IDLE;
+        if (pending && mListener != null) {
+            mListener.onGestureMetrics(mMetrics);
+        }
+    }
+}
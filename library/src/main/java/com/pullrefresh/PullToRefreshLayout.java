@@ -1,19 +1,22 @@
 package com.pullrefresh;
 
 import android.content.Context;
+import android.content.res.TypedArray;
 import android.support.v4.view.MotionEventCompat;
+import android.support.v4.view.NestedScrollingChild3;
 import android.support.v4.view.NestedScrollingChildHelper;
-import android.support.v4.view.NestedScrollingParent;
+import android.support.v4.view.NestedScrollingParent3;
 import android.support.v4.view.NestedScrollingParentHelper;
 import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
-import android.widget.AbsListView;
-import android.widget.Scroller;
+import android.view.ViewTreeObserver;
+import android.view.WindowManager;
 
 /**
  * 参考
@@ -34,13 +37,44 @@ import android.widget.Scroller;
  * 4.子view是否可以上拉判断准确
  * 5.是否找到子view
  */
-public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, NestedScrollingParent {
+public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, NestedScrollingParent3,
+        NestedScrollingChild3 {
     private static final String TAG = PullToRefreshLayout.class.getSimpleName();
     private static final String LOG_TAG = TAG;
-    private static final float DRAG_RATE = 0.5f;
-    //阻尼，使有下拉感
-    private int damp = 2;
-    private static final long RESET_DELAY_MILLIS = 500;
+    //pullResistance属性的取值
+    private static final int RESISTANCE_LINEAR = 0;
+    private static final int RESISTANCE_RUBBER_BAND = 1;
+    private static final int RESISTANCE_LOGARITHMIC = 2;
+    /**
+     * 自适应预取最多提前几屏
+     */
+    private static final int MAX_PREFETCH_SCREENS = 3;
+    /**
+     * 松手后平滑滚动的时长范围，距离达到SETTLE_REFERENCE_DISTANCE_DP时用最长时长
+     */
+    private static final long SETTLE_MIN_DURATION_MILLIS = 150;
+    private static final long SETTLE_MAX_DURATION_MILLIS = 500;
+    private static final int SETTLE_REFERENCE_DISTANCE_DP = 200;
+    /**
+     * 吸收惯性时的减速度，单位dp/s²
+     */
+    private static final int FLING_DECELERATION_DP = 8000;
+    /**
+     * 刷新率低于它时不预测手指位置，一帧太长，预测误差比延迟更明显
+     */
+    private static final float MIN_PREDICTION_REFRESH_RATE = 55f;
+    /**
+     * 预测距离的上限
+     */
+    private static final int MAX_PREDICTION_DP = 24;
+    /**
+     * 滚动整个布局(scrollTo)来显示Header和Footer，每一帧都会重绘整个容器和内容
+     */
+    public static final int RENDER_MODE_SCROLL = 0;
+    /**
+     * 通过setTranslationY移动Header、内容和Footer，拉动时只更新RenderNode的属性，不重绘列表
+     */
+    public static final int RENDER_MODE_TRANSLATION = 1;
     /**
      * 一个触摸动作被认为是用户滚动的像素距离
      */
@@ -53,47 +87,131 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
      * 底部加载
      */
     private View mFooterView;
+    //分别记录上次滑动的坐标
+    private float mLastX;
+    private float mLastY;
     /**
-     * 开启下拉刷新
+     * 松手后的平滑滚动，每一帧由vsync驱动
      */
-    private boolean isPullRefreshEnabled = true;
+    private SettleAnimator mSettleAnimator;
     /**
-     * 开启上拉加载
+     * 记录手指的速度，松手后内容惯性滑到头时用来拉出Header或Footer
      */
-    private boolean isPullLoadEnabled = true;
+    private VelocityTracker mVelocityTracker;
+    private int mMinimumVelocity;
+    private int mMaximumVelocity;
+    private FlingEdgeWatcher mFlingEdgeWatcher;
+    private boolean isFlingAbsorbEnabled = true;
+    //正在惯性回弹
+    private boolean mBouncing;
     /**
-     * 滚动到最后就加载
+     * 判断内容是否到顶、到底，结果在同一帧内缓存
      */
-    private boolean isScrollLoadEnabled;
-    //分别记录上次滑动的坐标
-    private float mLastX;
-    private float mLastY;
-    private Scroller mScroller;
+    private final ScrollBoundaryCache mBoundaryCache = new ScrollBoundaryCache();
+    /**
+     * 内容滚动时让边界缓存失效，并检查是否需要自动加载更多
+     */
+    private final ContentScrollListener mContentScrollListener = new ContentScrollListener();
+    /**
+     * 内容上次的位置。窗口里任何View滚动都会回调ContentScrollListener，包括拉动时自己的滚动，
+     * 位置没变说明不是内容在滚动，不检查自动加载
+     */
+    private View mScrollLoadTarget;
+    private int mLastItemsBelow;
+    private int mLastPixelsBelow;
+    private int mLastTargetScrollY;
+    //加载更多失败后不再自动加载，直到用户开始新的滑动，避免一直重试
+    private boolean isScrollLoadArmed = true;
+    /**
+     * Header和Footer的测量缓存，藏在屏幕外时不测量
+     */
+    private final LoadingMeasureCache mHeaderMeasure = new LoadingMeasureCache();
+    private final LoadingMeasureCache mFooterMeasure = new LoadingMeasureCache();
+    /**
+     * 拉动和平滑滚动时把移动的View放到硬件层上
+     */
+    private final HardwareLayers mHardwareLayers = new HardwareLayers();
+    private boolean isHardwareLayersEnabled = true;
+    //Header、内容或Footer正在移动，停下后去掉硬件层
+    private boolean mMoving;
+    //嵌套滑动中子View自己在滚动，内容每帧都在变化
+    private boolean mContentScrolling;
+    //内容现在应该在硬件层上
+    private boolean isTargetLayered;
+    /**
+     * 拉动时把一帧内的移动累加起来，下一帧开始时只移动一次
+     */
+    private boolean isDragCoalescingEnabled;
+    private boolean mDragFlushPosted;
+    private final Runnable mDragFlush = new Runnable() {
+        @Override
+        public void run() {
+            mDragFlushPosted = false;
+            mEngine.flushDrag();
+        }
+    };
+    /**
+     * 预测手指在下一帧的位置，让Header跟上手指
+     */
+    private final TouchPredictor mTouchPredictor = new TouchPredictor();
+    private boolean isTouchPredictionEnabled;
+    //一帧的时长，刷新率太低时是0，不预测
+    private long mFrameIntervalMillis;
+    //已经多拉动的预测距离，松手时去掉
+    private float mPredictedLead;
 
 
     private static final int INVALID_POINTER = -1;
     private OnRefreshListener mOnRefreshListener;
     private OnLoadMoreListener mLoadMoreListener;
-    private int mState;
+    private OnAsyncRefreshListener mAsyncRefreshListener;
+    /**
+     * 刷新超时的时间，0表示不超时
+     */
+    private long mRefreshTimeoutMillis;
+    private final PullMetricsTracker mMetricsTracker = new PullMetricsTracker();
+    private GestureRecorder mGestureRecorder;
+    private final ResetScheduler mResetScheduler = new ResetScheduler(this, new ResetCallback());
+    /**
+     * 加载失败的提示停留一段时间后收起底部
+     */
+    private long mLoadFailHoldMillis = ResetScheduler.DEFAULT_HOLD_MILLIS;
+    private final Runnable mLoadFailReset = new Runnable() {
+        @Override
+        public void run() {
+            //期间已经被取消，或者又开始了新的加载
+            if (mEngine.isLoading() && mEngine.getLoadMoreToken() == 0) {
+                mEngine.resetPullUp();
+            }
+        }
+    };
+    private final Runnable mRefreshTimeout = new Runnable() {
+        @Override
+        public void run() {
+            setPullDownRefreshFailed(mEngine.getRefreshToken());
+        }
+    };
+    /**
+     * 拖动和状态的计算都交给它，这里只负责事件和View
+     */
+    private final PullEngine mEngine;
+    private int mRenderMode = RENDER_MODE_SCROLL;
     private View mTarget;
     private int mActivePointerId;
     private float mInitialDownX;
     private float mInitialDownY;
     private boolean mIsBeingDragged;
-    private int mRefreshTriggerOffset;
-    private int mLoadMoreTriggerOffset;
-    private boolean mRefreshing = false;
-    private boolean mLoading = false;
 
     private final NestedScrollingParentHelper mNestedScrollingParentHelper;
     private final NestedScrollingChildHelper mNestedScrollingChildHelper;
-    private float mTotalUnconsumed;
-    private float mTotalLoadUnconsumed;
     private boolean mNestedScrollInProgress;
     private final int[] mParentScrollConsumed = new int[2];
+    private final int[] mNestedScrollConsumed = new int[2];
+    //这次惯性滑动剩下的距离已经交给头部或底部回弹了
+    private boolean mFlingTailAbsorbed;
+    private long mLastFlingNanos;
+    private float mNestedFlingVelocity;
     private final int[] mParentOffsetInWindow = new int[2];
-    private int mHeaderHeight;
-    private int mFooterHeight;
 
     public PullToRefreshLayout(Context context) {
         this(context, null);
@@ -105,15 +223,71 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
 
     public PullToRefreshLayout(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
+        mEngine = new PullEngine(new EngineHost());
         init(context);
+        initAttrs(context, attrs, defStyleAttr);
         mNestedScrollingParentHelper = new NestedScrollingParentHelper(this);
         mNestedScrollingChildHelper = new NestedScrollingChildHelper(this);
         setNestedScrollingEnabled(true);
     }
 
     private void init(Context context) {
-        mScroller = new Scroller(getContext());
-        mTouchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+        float referenceDistance = SETTLE_REFERENCE_DISTANCE_DP * context.getResources().getDisplayMetrics().density;
+        mSettleAnimator = new SettleAnimator(this, new DurationSettler(SETTLE_MIN_DURATION_MILLIS,
+                SETTLE_MAX_DURATION_MILLIS, referenceDistance), new SettleCallback());
+        final ViewConfiguration configuration = ViewConfiguration.get(context);
+        mTouchSlop = configuration.getScaledTouchSlop();
+        mMinimumVelocity = configuration.getScaledMinimumFlingVelocity();
+        mMaximumVelocity = configuration.getScaledMaximumFlingVelocity();
+        mFlingEdgeWatcher = new FlingEdgeWatcher(context, this, new EdgeCallback());
+        mEngine.setFlingDeceleration(FLING_DECELERATION_DP * context.getResources().getDisplayMetrics().density);
+        mTouchPredictor.setMaxDistance(MAX_PREDICTION_DP * context.getResources().getDisplayMetrics().density);
+    }
+
+    private void initAttrs(Context context, AttributeSet attrs, int defStyleAttr) {
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.PullToRefreshLayout, defStyleAttr, 0);
+        final int resistance = a.getInt(R.styleable.PullToRefreshLayout_pullResistance, RESISTANCE_LINEAR);
+        final float rate = a.getFloat(R.styleable.PullToRefreshLayout_pullDragRate, PullEngine.DRAG_RATE);
+        final float distance = a.getDimension(R.styleable.PullToRefreshLayout_pullResistanceDistance,
+                context.getResources().getDisplayMetrics().heightPixels / 2f);
+        a.recycle();
+        if (resistance == RESISTANCE_RUBBER_BAND) {
+            mEngine.setResistanceCurve(ResistanceCurve.rubberBand(rate, distance));
+        } else if (resistance == RESISTANCE_LOGARITHMIC) {
+            mEngine.setResistanceCurve(ResistanceCurve.logarithmic(rate, distance));
+        } else if (rate != PullEngine.DRAG_RATE) {
+            mEngine.setResistanceCurve(ResistanceCurve.linear(rate));
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        getViewTreeObserver().addOnScrollChangedListener(mContentScrollListener);
+        mScrollLoadTarget = null;
+        if (mMetricsTracker.isEnabled()) {
+            getViewTreeObserver().addOnPreDrawListener(mMetricsTracker);
+        }
+        final WindowManager windowManager =
+                (WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE);
+        final float refreshRate = windowManager.getDefaultDisplay().getRefreshRate();
+        mMetricsTracker.setRefreshRate(refreshRate);
+        mFrameIntervalMillis = refreshRate >= MIN_PREDICTION_REFRESH_RATE ? Math.round(1000 / refreshRate) : 0;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        getViewTreeObserver().removeOnScrollChangedListener(mContentScrollListener);
+        getViewTreeObserver().removeOnPreDrawListener(mMetricsTracker);
+        abortSettle();
+        releaseVelocityTracker();
+        removeCallbacks(mDragFlush);
+        mDragFlushPosted = false;
+        mMoving = false;
+        mContentScrolling = false;
+        isTargetLayered = false;
+        mHardwareLayers.clear();
     }
 
     @Override
@@ -127,6 +301,9 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
             mHeaderView = findViewById(R.id.swipe_refresh_header);
             mTarget = findViewById(R.id.swipe_target);
             mFooterView = findViewById(R.id.swipe_load_more_footer);
+            mBoundaryCache.onTargetChanged(mTarget);
+            mEngine.setHasHeader(mHeaderView instanceof LoadingLayout);
+            mEngine.setHasFooter(mFooterView instanceof LoadingLayout);
         } else {
             // more than three children: unsupported!
             throw new IllegalStateException("Children num must equal or less than 3");
@@ -140,33 +317,25 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
             return;
         }
         int targetHeightSize = getMeasuredHeight() - getPaddingTop() - getPaddingBottom();
+        mEngine.setMaxPrefetchDistance(targetHeightSize * MAX_PREFETCH_SCREENS);
         mTarget.measure(MeasureSpec.makeMeasureSpec(
                 getMeasuredWidth() - getPaddingLeft() - getPaddingRight(),
                 MeasureSpec.EXACTLY), MeasureSpec.makeMeasureSpec(targetHeightSize, MeasureSpec.EXACTLY));
-        if(mHeaderView != null) {
-            mHeaderView.measure(MeasureSpec.makeMeasureSpec(
-                    getMeasuredWidth() - getPaddingLeft() - getPaddingRight(),
-                    MeasureSpec.EXACTLY), MeasureSpec.makeMeasureSpec(
-                    getMeasuredHeight() - getPaddingTop() - getPaddingBottom(), MeasureSpec.AT_MOST));
-            mHeaderHeight = mHeaderView.getMeasuredHeight();
-            if (mRefreshTriggerOffset < mHeaderHeight) {
-                mRefreshTriggerOffset = mHeaderHeight;
-            }
+        final int childWidthSpec = MeasureSpec.makeMeasureSpec(
+                getMeasuredWidth() - getPaddingLeft() - getPaddingRight(), MeasureSpec.EXACTLY);
+        if(mHeaderView != null && mHeaderMeasure.measure(mHeaderView, childWidthSpec, targetHeightSize,
+                mEngine.getOffset() >= 0 && mEngine.getPullDownState() == PullState.RESET)) {
+            mEngine.setHeaderHeight(mHeaderView.getMeasuredHeight());
         }
-        if(mFooterView != null) {
-            mFooterView.measure(MeasureSpec.makeMeasureSpec(
-                    getMeasuredWidth() - getPaddingLeft() - getPaddingRight(),
-                    MeasureSpec.EXACTLY), MeasureSpec.makeMeasureSpec(
-                    getMeasuredHeight() - getPaddingTop() - getPaddingBottom(), MeasureSpec.AT_MOST));
-            mFooterHeight = mFooterView.getMeasuredHeight();
-            if (mLoadMoreTriggerOffset < mFooterHeight) {
-                mLoadMoreTriggerOffset = mFooterHeight;
-            }
+        if(mFooterView != null && mFooterMeasure.measure(mFooterView, childWidthSpec, targetHeightSize,
+                mEngine.getOffset() <= 0 && mEngine.getPullUpState() == PullState.RESET)) {
+            mEngine.setFooterHeight(mFooterView.getMeasuredHeight());
         }
     }
 
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        mBoundaryCache.invalidate();
         final int width = getMeasuredWidth();
         final int height = getMeasuredHeight();
         if (getChildCount() == 0) {
@@ -185,18 +354,30 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
         if(mHeaderView != null) {
             int headWidth = mHeaderView.getMeasuredWidth();
             int headHeight = mHeaderView.getMeasuredHeight();
-            mHeaderView.layout(childLeft, -headHeight,
+            layoutLoadingView(mHeaderView, mHeaderMeasure, childLeft, -headHeight,
                     childLeft + headWidth, 0);
         }
 
         if(mFooterView != null) {
             int footerWidth = mFooterView.getMeasuredWidth();
             int footerHeight = mFooterView.getMeasuredHeight();
-            mFooterView.layout(childLeft, height,
+            layoutLoadingView(mFooterView, mFooterMeasure, childLeft, height,
                     childLeft + footerWidth, height + footerHeight);
         }
     }
 
+    /**
+     * 跳过了测量的View只移动位置，不调用layout，保留它请求布局的标记
+     */
+    private static void layoutLoadingView(View view, LoadingMeasureCache cache, int l, int t, int r, int b) {
+        if (cache.isSkipped()) {
+            view.offsetLeftAndRight(l - view.getLeft());
+            view.offsetTopAndBottom(t - view.getTop());
+        } else {
+            view.layout(l, t, r, b);
+        }
+    }
+
     @Override
     public boolean isReadyForPullDown() {
         return !canChildScrollUp();
@@ -209,32 +390,203 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
 
     @Override
     public void setPullRefreshEnabled(boolean pullRefreshEnabled) {
-        isPullRefreshEnabled = pullRefreshEnabled;
+        mEngine.setPullRefreshEnabled(pullRefreshEnabled);
     }
 
     @Override
     public void setPullLoadEnabled(boolean pullLoadEnabled) {
-        isPullLoadEnabled = pullLoadEnabled;
+        mEngine.setPullLoadEnabled(pullLoadEnabled);
     }
 
     @Override
     public void setScrollLoadEnabled(boolean scrollLoadEnabled) {
-        isScrollLoadEnabled = scrollLoadEnabled;
+        mEngine.setScrollLoadEnabled(scrollLoadEnabled);
     }
 
     @Override
     public boolean isPullRefreshEnabled() {
-        return isPullRefreshEnabled;
+        return mEngine.isPullRefreshEnabled();
     }
 
     @Override
     public boolean isPullLoadEnabled() {
-        return isPullLoadEnabled;
+        return mEngine.isPullLoadEnabled();
     }
 
     @Override
     public boolean isScrollLoadEnabled() {
-        return isScrollLoadEnabled;
+        return mEngine.isScrollLoadEnabled();
+    }
+
+    /**
+     * 设置自动加载更多的预取阈值，滚动到剩余的item数或者像素距离不超过阈值时就开始加载，
+     * 不用等到滚动到底。需要{@link #setScrollLoadEnabled(boolean)}。
+     * <p>剩余的item数只有ListView、GridView和LinearLayoutManager的RecyclerView能算出来，
+     * 其它View用像素距离，自定义的{@link ScrollBoundaryDetector}可以实现{@link ScrollExtentDetector}。</p>
+     * @param itemCount 剩余的item数，默认3
+     * @param distance 剩余的像素距离，默认0即滚动到底
+     */
+    public void setPrefetchThreshold(int itemCount, int distance) {
+        mEngine.setPrefetchThreshold(itemCount, distance);
+    }
+
+    /**
+     * 设置自适应的预取距离：按内容的滚动速度和最近几次加载更多的耗时提前开始加载，
+     * 快速滑动时数据在滚动到底之前就回来了，不会看到加载中的Footer。
+     * 最多提前3屏。
+     * @param adaptivePrefetch 默认false，只用{@link #setPrefetchThreshold(int, int)}的固定阈值
+     */
+    public void setAdaptivePrefetchEnabled(boolean adaptivePrefetch) {
+        mEngine.setAdaptivePrefetchEnabled(adaptivePrefetch);
+    }
+
+    /**
+     * 设置拉动的阻力曲线，也可以在XML里用pullResistance、pullDragRate和pullResistanceDistance属性设置
+     */
+    @Override
+    public void setResistanceCurve(ResistanceCurve curve) {
+        mEngine.setResistanceCurve(curve);
+    }
+
+    @Override
+    public ResistanceCurve getResistanceCurve() {
+        return mEngine.getResistanceCurve();
+    }
+
+    /**
+     * 设置状态边沿触发：拉动时Header和Footer的状态方法只在状态切换时调用，
+     * 不会每次移动都setText、setVisibility而引起重新布局。
+     * 连续的拉动进度回调给实现了{@link OnPullProgressListener}的Header和Footer。
+     * @param edgeTriggered 默认false，每次移动都回调onPullToRefresh(float)
+     */
+    public void setEdgeTriggeredDispatch(boolean edgeTriggered) {
+        mEngine.setEdgeTriggered(edgeTriggered);
+    }
+
+    public boolean isEdgeTriggeredDispatch() {
+        return mEngine.isEdgeTriggered();
+    }
+
+    /**
+     * 设置移动内容的方式
+     * @param renderMode {@link #RENDER_MODE_SCROLL}或{@link #RENDER_MODE_TRANSLATION}
+     */
+    public void setRenderMode(int renderMode) {
+        if (renderMode != RENDER_MODE_SCROLL && renderMode != RENDER_MODE_TRANSLATION) {
+            throw new IllegalArgumentException("Unknown render mode: " + renderMode);
+        }
+        if (mRenderMode == renderMode) {
+            return;
+        }
+        //把当前的偏移量换到新的方式上
+        int offset = mEngine.getOffset();
+        applyOffset(0);
+        mRenderMode = renderMode;
+        applyOffset(offset);
+    }
+
+    public int getRenderMode() {
+        return mRenderMode;
+    }
+
+    /**
+     * 设置拉动和平滑滚动时是否自动使用硬件层，默认开启.
+     * 内容被拉离原位、自己又没有滚动时放到硬件层上，Header和Footer只在松手后内容不再变化时才放上去，
+     * 停下后去掉。本来就设置了层的View不受影响。
+     */
+    public void setHardwareLayersEnabled(boolean enabled) {
+        isHardwareLayersEnabled = enabled;
+        updateHardwareLayers();
+    }
+
+    public boolean isHardwareLayersEnabled() {
+        return isHardwareLayersEnabled;
+    }
+
+    /**
+     * 设置拉动时是否按帧合并移动，默认关闭.
+     * 开启后每个触摸事件（包括其中的历史采样点）只累加距离，下一帧开始时才移动一次、分发一次状态，
+     * 触摸事件比屏幕刷新频繁的设备上可以少做几次布局和重绘，代价是移动最多晚一帧。
+     */
+    public void setDragCoalescingEnabled(boolean enabled) {
+        isDragCoalescingEnabled = enabled;
+        if (!enabled) {
+            mEngine.flushDrag();
+        }
+    }
+
+    public boolean isDragCoalescingEnabled() {
+        return isDragCoalescingEnabled;
+    }
+
+    /**
+     * 设置拉动时是否预测手指的位置，默认关闭.
+     * 开启后按最近几个触摸采样点的速度，把Header拉到手指在下一帧时的位置，减少跟手的延迟，
+     * 松手时去掉预测多拉的距离。屏幕刷新率低于55Hz时自动不预测。
+     */
+    public void setTouchPredictionEnabled(boolean enabled) {
+        isTouchPredictionEnabled = enabled;
+        mTouchPredictor.reset();
+    }
+
+    public boolean isTouchPredictionEnabled() {
+        return isTouchPredictionEnabled;
+    }
+
+    /**
+     * 设置松手后平滑滚动的动画，默认是时长随距离变化的{@link DurationSettler}，
+     * 也可以用{@link SpringSettler}
+     */
+    public void setSettler(Settler settler) {
+        if (settler == null) {
+            throw new IllegalArgumentException("Settler must not be null");
+        }
+        mSettleAnimator.setSettler(settler);
+    }
+
+    public Settler getSettler() {
+        return mSettleAnimator.getSettler();
+    }
+
+    /**
+     * 设置内容惯性滑动到头时，是否把剩下的速度转成Header或Footer的回弹，默认开启
+     */
+    public void setFlingAbsorbEnabled(boolean flingAbsorbEnabled) {
+        isFlingAbsorbEnabled = flingAbsorbEnabled;
+        if (!flingAbsorbEnabled) {
+            mFlingEdgeWatcher.stop();
+        }
+    }
+
+    public boolean isFlingAbsorbEnabled() {
+        return isFlingAbsorbEnabled;
+    }
+
+    /**
+     * 设置内容惯性滑动到底时直接开始加载更多，不用再上拉一次
+     */
+    public void setFlingLoadMoreEnabled(boolean flingLoadMoreEnabled) {
+        mEngine.setFlingLoadMoreEnabled(flingLoadMoreEnabled);
+    }
+
+    public boolean isFlingLoadMoreEnabled() {
+        return mEngine.isFlingLoadMoreEnabled();
+    }
+
+    /**
+     * 设置判断内容是否到顶、到底的实现
+     * @param detector null表示按内容View的类型自动选择，见{@link ScrollBoundaryDetectors#forTarget(View)}
+     */
+    public void setScrollBoundaryDetector(ScrollBoundaryDetector detector) {
+        mBoundaryCache.setDetector(detector);
+        mScrollLoadTarget = null;
+        if (detector == null) {
+            mBoundaryCache.onTargetChanged(mTarget);
+        }
+    }
+
+    public ScrollBoundaryDetector getScrollBoundaryDetector() {
+        return mBoundaryCache.getDetector();
     }
 
     @Override
@@ -248,27 +600,153 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
     }
 
     @Override
-    public void setPullDownRefreshComplete() {
-        setPullDown(PullState.REFRESH_SUCCESS);
-        setPullDownReset();
+    public void setOnAsyncRefreshListener(OnAsyncRefreshListener refreshListener) {
+        mAsyncRefreshListener = refreshListener;
     }
 
-    private void setPullDownReset() {
-        postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                smoothScrollBy(0, -getScrollY());
-                mRefreshing = false;
-                setPullDown(PullState.RESET);
+    /**
+     * 设置录制器，录制之后收到的触摸事件和嵌套滑动回调，null表示不录制
+     */
+    public void setGestureRecorder(GestureRecorder recorder) {
+        mGestureRecorder = recorder;
+    }
+
+    PullEngine getEngine() {
+        return mEngine;
+    }
+
+    View getTarget() {
+        return mTarget;
+    }
+
+    /**
+     * 设置性能数据的监听器，每次拉动手势和每次刷新、加载更多结束时回调.
+     * 数据对象会被复用，收集过程不分配内存；设置为null时不再统计。
+     */
+    public void setPullMetricsListener(PullMetricsListener listener) {
+        mMetricsTracker.setListener(listener);
+        if (ViewCompat.isAttachedToWindow(this)) {
+            getViewTreeObserver().removeOnPreDrawListener(mMetricsTracker);
+            if (listener != null) {
+                getViewTreeObserver().addOnPreDrawListener(mMetricsTracker);
             }
-        }, RESET_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * 设置刷新超时，超时还没有完成就显示刷新失败并复位，停止进度条的动画
+     * @param timeoutMillis 默认0，不超时
+     */
+    public void setRefreshTimeout(long timeoutMillis) {
+        if (timeoutMillis < 0) {
+            throw new IllegalArgumentException("Refresh timeout must not be negative");
+        }
+        mRefreshTimeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * 设置刷新中的状态最短显示多久，数据回来得太快时等够这个时间再显示结果，避免头部闪一下
+     * @param minDwellMillis 默认0
+     */
+    public void setMinRefreshDwell(long minDwellMillis) {
+        if (minDwellMillis < 0) {
+            throw new IllegalArgumentException("Dwell must not be negative");
+        }
+        mResetScheduler.setMinDwell(minDwellMillis);
+    }
+
+    /**
+     * 设置刷新成功、失败的提示停留多久后收起头部，加载更多失败的提示也停留failHoldMillis
+     * @param successHoldMillis 默认500
+     * @param failHoldMillis 默认500
+     */
+    public void setRefreshResultHold(long successHoldMillis, long failHoldMillis) {
+        if (successHoldMillis < 0 || failHoldMillis < 0) {
+            throw new IllegalArgumentException("Hold duration must not be negative");
+        }
+        mResetScheduler.setResultHold(successHoldMillis, failHoldMillis);
+        mLoadFailHoldMillis = failHoldMillis;
+    }
+
+    @Override
+    public void setPullDownRefreshComplete() {
+        setPullDownRefreshComplete(mEngine.getRefreshToken());
+    }
+
+    @Override
+    public boolean setPullDownRefreshComplete(int token) {
+        return finishRefresh(token, true);
+    }
+
+    @Override
+    public boolean setPullDownRefreshFailed(int token) {
+        return finishRefresh(token, false);
+    }
+
+    /**
+     * 刷新结束，交给mResetScheduler显示结果并复位
+     */
+    private boolean finishRefresh(int token, boolean success) {
+        if (token == 0 || token != mEngine.getRefreshToken()
+                || !mResetScheduler.schedule(token, success)) {
+            return false;
+        }
+        removeCallbacks(mRefreshTimeout);
+        mMetricsTracker.onRequestFinished(PullMetrics.REQUEST_REFRESH, success);
+        return true;
     }
 
     @Override
     public void setPullUpRefreshComplete() {
-        smoothScrollBy(0, -getScrollY());
-        mLoading = false;
-        setPullUp(PullState.RESET);
+        if (!mEngine.isLoading()) {
+            //已经被取消了
+            return;
+        }
+        mEngine.onLoadMoreComplete(System.nanoTime());
+        mMetricsTracker.onRequestFinished(PullMetrics.REQUEST_LOAD_MORE, true);
+        mEngine.resetPullUp();
+    }
+
+    @Override
+    public boolean setPullUpRefreshComplete(int token) {
+        if (!mEngine.onLoadMoreComplete(token, System.nanoTime())) {
+            return false;
+        }
+        mMetricsTracker.onRequestFinished(PullMetrics.REQUEST_LOAD_MORE, true);
+        mEngine.resetPullUp();
+        return true;
+    }
+
+    @Override
+    public boolean setPullUpRefreshFailed(int token) {
+        if (!mEngine.onLoadMoreFailed(token)) {
+            return false;
+        }
+        mMetricsTracker.onRequestFinished(PullMetrics.REQUEST_LOAD_MORE, false);
+        isScrollLoadArmed = false;
+        removeCallbacks(mLoadFailReset);
+        postDelayed(mLoadFailReset, mLoadFailHoldMillis);
+        return true;
+    }
+
+    @Override
+    public int getRefreshToken() {
+        return mEngine.getRefreshToken();
+    }
+
+    @Override
+    public int getLoadMoreToken() {
+        return mEngine.getLoadMoreToken();
+    }
+
+    @Override
+    public boolean isTokenActive(int token) {
+        return mEngine.isTokenActive(token);
+    }
+
+    @Override
+    public void cancelLoadMore() {
+        mEngine.cancelLoadMore();
     }
 
     @Override
@@ -289,7 +767,16 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
     如布局结构可知，默认情况下Header和Footer是放置在Content View的最上面和最下面，
     通过设置padding来让他跑到屏幕外面去了，如果我们将整个布局向下滚动(scrollTo)一定距离，
     那么Header就会被显示出来，基于这种情况，所以在我的实现中，最终我是调用scrollTo来实现下拉动作的。
+    RENDER_MODE_TRANSLATION下不滚动容器，而是给三个子View设置相同的translationY。
      */
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent ev) {
+        if (mGestureRecorder != null) {
+            mGestureRecorder.onTouchEvent(ev);
+        }
+        return super.dispatchTouchEvent(ev);
+    }
+
     @Override
     public boolean onInterceptTouchEvent(MotionEvent ev) {
         //外部拦截法
@@ -298,8 +785,18 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
             // Fail fast if we're not in a state where a swipe is possible
             return false;
         }
+        if (mVelocityTracker == null) {
+            mVelocityTracker = VelocityTracker.obtain();
+        }
+        if (action == MotionEvent.ACTION_DOWN) {
+            mVelocityTracker.clear();
+        }
+        mVelocityTracker.addMovement(ev);
         switch (action) {
             case MotionEvent.ACTION_DOWN:
+                mMetricsTracker.onGestureStart(PullMetrics.SOURCE_TOUCH);
+                mBoundaryCache.invalidate();
+                isScrollLoadArmed = true;
                 mActivePointerId = MotionEventCompat.getPointerId(ev, 0);
                 mIsBeingDragged = false;
                 final float initialDownX = getMotionEventX(ev, mActivePointerId);
@@ -310,11 +807,14 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
                 mInitialDownX = initialDownX;
                 mInitialDownY = initialDownY;
                 mLastY = initialDownY;
-                if (!mScroller.isFinished()) {
-                    //当滑动未完成，下一个序列的点击事件任然交给父容器处理
-                    Log.e(LOG_TAG, "!mScroller.isFinished().");
-//                    mScroller.abortAnimation();
-//                    mIsBeingDragged = true;
+                mTouchPredictor.reset();
+                mPredictedLead = 0;
+                if (mSettleAnimator.isRunning()) {
+                    //当滑动未完成，停在当前位置，这次手势接着拉动
+                    abortSettle();
+                    mIsBeingDragged = mEngine.getOffset() != 0;
+                } else {
+                    abortSettle();
                 }
                 break;
 
@@ -333,11 +833,11 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
                 final float yDiff = y - mInitialDownY;
                 if (Math.abs(xDiff) < Math.abs(yDiff)
                         && Math.abs(yDiff) > mTouchSlop && !mIsBeingDragged) {
-                    if (isPullRefreshEnabled && yDiff > 0 && isReadyForPullDown()) {
+                    if (isPullRefreshEnabled() && yDiff > 0 && isReadyForPullDown()) {
                         //向下滑，且ListView已经滑动到最顶部
                         //父容器需要当前点击事件
                         mIsBeingDragged = true;
-                    } else if (isPullLoadEnabled && yDiff < 0 && isReadyForPullUp()) {
+                    } else if (isPullLoadEnabled() && yDiff < 0 && isReadyForPullUp()) {
                         //向上滑，且ListView已经滑动到最底部
                         mIsBeingDragged = true;
                     }
@@ -349,9 +849,26 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
                 break;
 
             case MotionEvent.ACTION_UP:
+                if (!mIsBeingDragged && isFlingAbsorbEnabled && mActivePointerId != INVALID_POINTER) {
+                    //内容自己在滑动，松手后看它的惯性会不会滑到头
+                    mVelocityTracker.computeCurrentVelocity(1000, mMaximumVelocity);
+                    float velocityY = mVelocityTracker.getYVelocity(mActivePointerId);
+                    if (Math.abs(velocityY) > mMinimumVelocity) {
+                        //手指向下，内容向上滚动
+                        mFlingEdgeWatcher.start(-velocityY);
+                    }
+                }
+                mIsBeingDragged = false;
+                mActivePointerId = INVALID_POINTER;
+                mMetricsTracker.onGestureEnd(false);
+                onMotionEnded();
+                break;
+
             case MotionEvent.ACTION_CANCEL:
                 mIsBeingDragged = false;
                 mActivePointerId = INVALID_POINTER;
+                mMetricsTracker.onGestureEnd(false);
+                onMotionEnded();
                 break;
         }
 
@@ -371,9 +888,9 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
                 Log.d(TAG, "ACTION_DOWN");
                 mActivePointerId = MotionEventCompat.getPointerId(ev, 0);
                 mIsBeingDragged = false;
-                if (!mScroller.isFinished()) {
-//                    mScroller.abortAnimation();
-                }
+                mTouchPredictor.reset();
+                mPredictedLead = 0;
+                abortSettle();
                 break;
             case MotionEvent.ACTION_MOVE:
                 pointerIndex = MotionEventCompat.findPointerIndex(ev, mActivePointerId);
@@ -385,14 +902,21 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
                 final float y = MotionEventCompat.getY(ev, pointerIndex);
                 //deltaY > 0 向下滑动
                 final float deltaY = y - mLastY;
-                if((deltaY > 0 && !isPullRefreshEnabled)
-                        || (deltaY < 0 && !isPullLoadEnabled)) {
+                if(!mEngine.canDrag(deltaY)) {
                     return false;
                 }
-                mLastY = y;
+                final float lastY = mLastY;
+                final float lead = isTouchPredicting() ? predictLead(ev, pointerIndex) : 0;
+                //预测的距离当作手指已经移动了，下一个事件从预测的位置算起，预测多了会自动拉回来
+                mLastY = y + lead;
+                mPredictedLead = lead;
 //                Log.d(TAG, "ACTION_MOVE, deltaX:" + " deltaY:" + deltaY);
-                float overScroll = -(deltaY * DRAG_RATE);
-                moveDrag(overScroll);
+                if (isDragCoalescingEnabled) {
+                    accumulateDrag(ev, pointerIndex, lastY, mLastY);
+                } else {
+                    mEngine.dragBy(mLastY - lastY);
+                }
+                mMetricsTracker.onMoveEvent();
                 break;
 
             case MotionEventCompat.ACTION_POINTER_DOWN: {
@@ -403,6 +927,8 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
                 }
                 mActivePointerId = MotionEventCompat.getPointerId(ev, pointerIndex);
                 mLastY = MotionEventCompat.getY(ev, mActivePointerId);
+                mTouchPredictor.reset();
+                mPredictedLead = 0;
                 break;
             }
 
@@ -416,182 +942,198 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
                     Log.e(LOG_TAG, "Got ACTION_UP event but don't have an active pointer id.");
                     return false;
                 }
-                finishDrag();
+                Log.d(TAG, "ACTION_UP offset=" + mEngine.getOffset());
+                retractPredictedLead();
+                mEngine.finishDrag();
                 mIsBeingDragged = false;
                 mActivePointerId = INVALID_POINTER;
+                mMetricsTracker.onGestureEnd(mSettleAnimator.isRunning());
+                onMotionEnded();
                 break;
 
             case MotionEvent.ACTION_CANCEL:
+                retractPredictedLead();
+                mEngine.flushDrag();
+                mMetricsTracker.onGestureEnd(mSettleAnimator.isRunning());
+                onMotionEnded();
                 return false;
         }
         return true;
     }
 
-    private void moveDrag(float overScroll) {
-        scrollBy(0, (int) overScroll);
-        //scrollY < 0 处于下拉状态
-        int scrollY = getScrollY();
-        if(scrollY < 0) {
-            //下拉状态
-            if(mRefreshing) {
-                return;
-            }
-            if (Math.abs(scrollY + overScroll) < mRefreshTriggerOffset) {
-                setPullDown(PullState.PULL_TO_REFRESH);
-            } else {
-                setPullDown(PullState.RELEASE_TO_REFRESH);
-            }
-        } else if(scrollY > 0){
-            //上拉状态
-            if(mLoading) {
-                return;
-            }
-            if (Math.abs(scrollY + overScroll) < mLoadMoreTriggerOffset) {
-                setPullUp(PullState.PULL_TO_REFRESH);
-            } else {
-                setPullUp(PullState.RELEASE_TO_REFRESH);
-            }
+    /**
+     * 按历史采样点逐段累加一个MOVE事件的移动，每段都按当时拉出的距离计算阻力，
+     * 并在下一帧开始时统一移动
+     * @param lastY 上一个事件的位置
+     * @param y 这个事件移动到的位置，包括预测的距离
+     */
+    private void accumulateDrag(MotionEvent ev, int pointerIndex, float lastY, float y) {
+        final int historySize = ev.getHistorySize();
+        for (int h = 0; h < historySize; h++) {
+            final float historicalY = ev.getHistoricalY(pointerIndex, h);
+            mEngine.accumulateDrag(historicalY - lastY);
+            lastY = historicalY;
+        }
+        mEngine.accumulateDrag(y - lastY);
+        if (!mDragFlushPosted) {
+            mDragFlushPosted = true;
+            ViewCompat.postOnAnimation(this, mDragFlush);
         }
     }
 
-    private void finishDrag() {
-        int scrollY = getScrollY();
-        Log.d(TAG, "ACTION_UP scrollY=" + scrollY);
-        if (scrollY < 0) {
-            int headerSize = mHeaderHeight;
-            if (Math.abs(scrollY) >= mRefreshTriggerOffset) {
-                //放开且高于头部，刷新
-                smoothScrollBy(0, -scrollY - headerSize);
-                setPullDown(PullState.REFRESHING);
-                mRefreshing = true;
-                if (mOnRefreshListener != null) {
-                    mOnRefreshListener.onPullDownToRefresh(this);
-                }
-            } else {
-                //放开且拉动距离小于触发值，还原
-                smoothScrollBy(0, -scrollY);
-                setPullDown(PullState.RESET);
-            }
-        } else if (scrollY > 0) {
-            int footerSize = mFooterHeight;
-            if (Math.abs(scrollY) >= mLoadMoreTriggerOffset) {
-                smoothScrollBy(0, -scrollY + footerSize);
-                setPullUp(PullState.REFRESHING);
-                mLoading = true;
-                if (mLoadMoreListener != null) {
-                    mLoadMoreListener.onPullUpToLoadMore(this);
-                }
-            } else {
-                smoothScrollBy(0, -scrollY);
-                setPullUp(PullState.RESET);
-            }
+    private boolean isTouchPredicting() {
+        return isTouchPredictionEnabled && mFrameIntervalMillis > 0;
+    }
+
+    /**
+     * 把这个MOVE事件的采样点交给预测器
+     * @return 手指在下一帧时还会移动的距离
+     */
+    private float predictLead(MotionEvent ev, int pointerIndex) {
+        final int historySize = ev.getHistorySize();
+        for (int h = 0; h < historySize; h++) {
+            mTouchPredictor.addSample(ev.getHistoricalEventTime(h), ev.getHistoricalY(pointerIndex, h));
         }
+        mTouchPredictor.addSample(ev.getEventTime(), MotionEventCompat.getY(ev, pointerIndex));
+        return mTouchPredictor.predictLead(mFrameIntervalMillis);
     }
 
-    private void setPullUp(int state) {
-        if (mFooterView != null && mFooterView instanceof LoadingLayout) {
-            LoadingLayout loadingLayout = (LoadingLayout) mFooterView;
-            mState = state;
-            switch (state) {
-                case PullState.PULL_TO_REFRESH:
-                    int scrollY = getScrollY();
-                    int distance = mLoadMoreTriggerOffset;
-                    float originalDragPercent = Math.abs(scrollY) * 1.0f / distance;
-                    float dragPercent = Math.min(1f, Math.abs(originalDragPercent));
-                    loadingLayout.onPullToRefresh(dragPercent);
-                    break;
-                case PullState.RELEASE_TO_REFRESH:
-                    loadingLayout.onReleaseToRefresh();
-                    break;
-                case PullState.REFRESHING:
-                    loadingLayout.onRefreshing();
-                    break;
-                default:
-                    loadingLayout.onReset();
-                    break;
-            }
+    /**
+     * 松手时去掉预测多拉的距离，按手指实际的位置回弹
+     */
+    private void retractPredictedLead() {
+        if (mPredictedLead != 0) {
+            mEngine.dragBy(-mPredictedLead);
+            mPredictedLead = 0;
         }
+        mTouchPredictor.reset();
     }
 
-    private void setPullDown(int state) {
-        if (mHeaderView != null && mHeaderView instanceof LoadingLayout) {
-            LoadingLayout loadingLayout = (LoadingLayout) mHeaderView;
-            mState = state;
-            switch (state) {
-                case PullState.PULL_TO_REFRESH:
-                    int scrollY = getScrollY();
-                    int distance = mRefreshTriggerOffset;
-                    float originalDragPercent = Math.abs(scrollY) * 1.0f / distance;
-                    float dragPercent = Math.min(1f, Math.abs(originalDragPercent));
-                    loadingLayout.onPullToRefresh(dragPercent);
-                    break;
-                case PullState.RELEASE_TO_REFRESH:
-                    loadingLayout.onReleaseToRefresh();
-                    break;
-                case PullState.REFRESHING:
-                    loadingLayout.onRefreshing();
-                    break;
-                case PullState.REFRESH_SUCCESS:
-                    loadingLayout.onRefreshSuccess();
-                    break;
-                default:
-                    loadingLayout.onReset();
-                    break;
-            }
+    private void setPullUp(int state, float fraction) {
+        LoadingLayout loadingLayout = (LoadingLayout) mFooterView;
+        switch (state) {
+            case PullState.PULL_TO_REFRESH:
+                loadingLayout.onPullToRefresh(fraction);
+                break;
+            case PullState.RELEASE_TO_REFRESH:
+                loadingLayout.onReleaseToRefresh();
+                break;
+            case PullState.REFRESHING:
+                loadingLayout.onRefreshing();
+                break;
+            case PullState.REFRESH_FAIL:
+                showRefreshFail(loadingLayout);
+                break;
+            default:
+                loadingLayout.onReset();
+                break;
         }
     }
 
-    private void smoothScrollBy(int dx, int dy) {
-        mScroller.startScroll(getScrollX(), getScrollY(), dx, dy, 500);
-        invalidate();
+    private void setPullDown(int state, float fraction) {
+        LoadingLayout loadingLayout = (LoadingLayout) mHeaderView;
+        switch (state) {
+            case PullState.PULL_TO_REFRESH:
+                loadingLayout.onPullToRefresh(fraction);
+                break;
+            case PullState.RELEASE_TO_REFRESH:
+                loadingLayout.onReleaseToRefresh();
+                break;
+            case PullState.REFRESHING:
+                loadingLayout.onRefreshing();
+                break;
+            case PullState.REFRESH_SUCCESS:
+                loadingLayout.onRefreshSuccess();
+                break;
+            case PullState.REFRESH_FAIL:
+                showRefreshFail(loadingLayout);
+                break;
+            default:
+                loadingLayout.onReset();
+                break;
+        }
     }
 
-    @Override
-    public void computeScroll() {
-        if (mScroller.computeScrollOffset()) {
-            scrollTo(mScroller.getCurrX(), mScroller.getCurrY());
-            postInvalidate();
+    /**
+     * 失败状态是可选的，没有实现{@link OnRefreshFailListener}的Header或Footer直接复位
+     */
+    private static void showRefreshFail(LoadingLayout loadingLayout) {
+        if (loadingLayout instanceof OnRefreshFailListener) {
+            ((OnRefreshFailListener) loadingLayout).onRefreshFail();
+        } else {
+            loadingLayout.onReset();
         }
     }
 
+    private void smoothScrollBy(int dy) {
+        int offset = mEngine.getOffset();
+        mSettleAnimator.start(offset, offset + dy);
+    }
+
     /**
-     * @return Whether it is possible for the child view of this layout to
-     *         scroll up. Override this if the child view is a custom view.
+     * 停止平滑滚动、惯性回弹和对内容惯性的跟踪
      */
-    public boolean canChildScrollUp() {
-        if (android.os.Build.VERSION.SDK_INT < 14) {
-            if (mTarget instanceof AbsListView) {
-                final AbsListView absListView = (AbsListView) mTarget;
-                return absListView.getChildCount() > 0
-                        && (absListView.getFirstVisiblePosition() > 0 || absListView.getChildAt(0)
-                        .getTop() < absListView.getPaddingTop());
-            } else {
-                return ViewCompat.canScrollVertically(mTarget, -1) || mTarget.getScrollY() > 0;
+    private void abortSettle() {
+        mFlingEdgeWatcher.stop();
+        mSettleAnimator.abort();
+        mMetricsTracker.onSettleEnd();
+        if (mBouncing) {
+            mBouncing = false;
+            mEngine.endFling();
+        }
+    }
+
+    private void releaseVelocityTracker() {
+        if (mVelocityTracker != null) {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
+        }
+    }
+
+    /**
+     * 按照当前的方式把内容移动到offset，offset的方向和getScrollY()一致
+     */
+    private void applyOffset(int offset) {
+        if (mRenderMode == RENDER_MODE_TRANSLATION) {
+            final float translationY = -offset;
+            if (mHeaderView != null) {
+                mHeaderView.setTranslationY(translationY);
+            }
+            if (mTarget != null) {
+                mTarget.setTranslationY(translationY);
+            }
+            if (mFooterView != null) {
+                mFooterView.setTranslationY(translationY);
             }
         } else {
-            return ViewCompat.canScrollVertically(mTarget, -1);
+            scrollTo(getScrollX(), offset);
         }
     }
 
+    /**
+     * @return Whether it is possible for the child view of this layout to
+     *         scroll up. Override this if the child view is a custom view,
+     *         or set a {@link ScrollBoundaryDetector}.
+     */
+    public boolean canChildScrollUp() {
+        if (mTarget == null) {
+            return false;
+        }
+        return mBoundaryCache.canScrollUp(mTarget, getDrawingTime());
+    }
+
     /**
      * Whether it is possible for the child view of this layout to
-     * scroll down. Override this if the child view is a custom view.
+     * scroll down. Override this if the child view is a custom view,
+     * or set a {@link ScrollBoundaryDetector}.
      *
      * @return
      */
     protected boolean canChildScrollDown() {
-        if (android.os.Build.VERSION.SDK_INT < 14) {
-            if (mTarget instanceof AbsListView) {
-                final AbsListView absListView = (AbsListView) mTarget;
-                return absListView.getChildCount() > 0
-                        && (absListView.getLastVisiblePosition() < absListView.getChildCount() - 1
-                        || absListView.getChildAt(absListView.getChildCount() - 1).getBottom() > absListView.getPaddingBottom());
-            } else {
-                return ViewCompat.canScrollVertically(mTarget, 1) || mTarget.getScrollY() < 0;
-            }
-        } else {
-            return ViewCompat.canScrollVertically(mTarget, 1);
+        if (mTarget == null) {
+            return false;
         }
+        return mBoundaryCache.canScrollDown(mTarget, getDrawingTime());
     }
 
     private float getMotionEventX(MotionEvent ev, int activePointerId) {
@@ -618,25 +1160,52 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
             // active pointer and adjust accordingly.
             final int newPointerIndex = pointerIndex == 0 ? 1 : 0;
             mActivePointerId = MotionEventCompat.getPointerId(ev, newPointerIndex);
+            mTouchPredictor.reset();
         }
     }
 
-    // NestedScrollingParent    嵌套滑动机制
+    // NestedScrollingParent3    嵌套滑动机制
     @Override
     public boolean onStartNestedScroll(View child, View target, int nestedScrollAxes) {
+        return onStartNestedScroll(child, target, nestedScrollAxes, ViewCompat.TYPE_TOUCH);
+    }
+
+    /**
+     * 带滑动类型的onStartNestedScroll()，对应NestedScrollingParent2
+     * @param type {@link ViewCompat#TYPE_TOUCH}或{@link ViewCompat#TYPE_NON_TOUCH}
+     */
+    @Override
+    public boolean onStartNestedScroll(View child, View target, int axes, int type) {
         Log.d(TAG, "onStartNestedScroll");
-        return isEnabled() && (nestedScrollAxes & ViewCompat.SCROLL_AXIS_VERTICAL) != 0;
+        return isEnabled() && (axes & ViewCompat.SCROLL_AXIS_VERTICAL) != 0;
     }
 
     @Override
     public void onNestedScrollAccepted(View child, View target, int axes) {
-        // Reset the counter of how much leftover scroll needs to be consumed.
-        mNestedScrollingParentHelper.onNestedScrollAccepted(child, target, axes);
+        onNestedScrollAccepted(child, target, axes, ViewCompat.TYPE_TOUCH);
+    }
+
+    @Override
+    public void onNestedScrollAccepted(View child, View target, int axes, int type) {
+        mNestedScrollingParentHelper.onNestedScrollAccepted(child, target, axes, type);
         // Dispatch up to the nested parent
-        startNestedScroll(axes & ViewCompat.SCROLL_AXIS_VERTICAL);
-        mTotalUnconsumed = 0;
-        mTotalLoadUnconsumed = 0;
+        startNestedScroll(axes & ViewCompat.SCROLL_AXIS_VERTICAL, type);
+        if (type != ViewCompat.TYPE_TOUCH) {
+            //惯性滑动开始，不打断正在进行的平滑滚动，也不算一次拖动
+            mFlingTailAbsorbed = false;
+            mLastFlingNanos = 0;
+            return;
+        }
+        // Reset the counter of how much leftover scroll needs to be consumed.
+        if (mGestureRecorder != null) {
+            mGestureRecorder.onNestedEvent(GestureTrace.NESTED_ACCEPT, 0, 0);
+        }
+        abortSettle();
+        mMetricsTracker.onGestureStart(PullMetrics.SOURCE_NESTED);
+        isScrollLoadArmed = true;
+        mEngine.onNestedScrollAccepted();
         mNestedScrollInProgress = true;
+        mContentScrolling = false;
     }
 
     /**
@@ -650,56 +1219,86 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
      */
     @Override
     public void onNestedPreScroll(View target, int dx, int dy, int[] consumed) {
-        // If we are in the middle of consuming, a scroll, then we want to move the spinner back up
-        // before allowing the list to scroll
-        if (isPullRefreshEnabled && dy > 0 && mTotalUnconsumed > 0) {
-            if (dy > mTotalUnconsumed) {
-                consumed[1] = (int) mTotalUnconsumed;
-                mTotalUnconsumed = 0;
-            } else {
-                mTotalUnconsumed -= dy;
-                consumed[1] = dy;
-            }
-            float overScroll = (consumed[1] * DRAG_RATE);
-            moveDrag(overScroll);
-        } else if (isPullLoadEnabled && dy < 0 && mTotalLoadUnconsumed < 0) {
-            if (dy < mTotalLoadUnconsumed) {
-                consumed[1] = (int) mTotalLoadUnconsumed;
-                mTotalLoadUnconsumed = 0;
-            } else {
-                mTotalLoadUnconsumed -= dy;
-                consumed[1] = dy;
-            }
-            float overScroll = (consumed[1] * DRAG_RATE);
-            moveDrag(overScroll);
-        }
-        Log.d(TAG, "onNestedPreScroll");
-        if(mRefreshing && dy > 0 && getScrollY() < 0) {
-            Log.d(TAG, "向上滑，且头部显示");
-            if (dy > Math.abs(getScrollY())) {
-                consumed[1] = Math.abs(getScrollY());
-            } else {
-                consumed[1] = dy;
-            }
-            moveDrag(consumed[1]);
-        } else if(mLoading && dy < 0 && getScrollY() > 0) {
-            Log.d(TAG, "向下滑，且底部显示");
-            if (Math.abs(dy) > getScrollY()) {
-                consumed[1] = -getScrollY();
-            } else {
-                consumed[1] = dy;
+        onNestedPreScroll(target, dx, dy, consumed, ViewCompat.TYPE_TOUCH);
+    }
+
+    /**
+     * 惯性滑动时不收回头部或底部，那是松手后平滑滚动的事，这里只交给外层
+     */
+    @Override
+    public void onNestedPreScroll(View target, int dx, int dy, int[] consumed, int type) {
+        if (type == ViewCompat.TYPE_TOUCH) {
+            if (mGestureRecorder != null) {
+                mGestureRecorder.onNestedEvent(GestureTrace.NESTED_PRE_SCROLL, dy, 0);
             }
-            moveDrag(consumed[1]);
+            consumed[1] = mEngine.onNestedPreScroll(dy);
+            mMetricsTracker.onMoveEvent();
+            Log.d(TAG, "onNestedPreScroll");
         }
 
         // Now let our nested parent consume the leftovers
         final int[] parentConsumed = mParentScrollConsumed;
-        if (dispatchNestedPreScroll(dx - consumed[0], dy - consumed[1], parentConsumed, null)) {
+        if (dispatchNestedPreScroll(dx - consumed[0], dy - consumed[1], parentConsumed, null, type)) {
             consumed[0] += parentConsumed[0];
             consumed[1] += parentConsumed[1];
         }
     }
 
+    private void updateHardwareLayers() {
+        if (!isHardwareLayersEnabled || !mMoving) {
+            isTargetLayered = false;
+            mHardwareLayers.clear();
+            return;
+        }
+        final int offset = mEngine.getOffset();
+        //拖动时Header和Footer每帧都在更新进度，平滑滚动时看状态
+        final boolean settling = mSettleAnimator.isRunning();
+        isTargetLayered = shouldLayerTarget(offset);
+        mHardwareLayers.set(HardwareLayers.TARGET, mTarget, isTargetLayered);
+        mHardwareLayers.set(HardwareLayers.HEADER, mHeaderView,
+                settling && offset < 0 && isStaticState(mEngine.getPullDownState()));
+        mHardwareLayers.set(HardwareLayers.FOOTER, mFooterView,
+                settling && offset > 0 && isStaticState(mEngine.getPullUpState()));
+    }
+
+    /**
+     * 内容只在整体移动、自己不滚动时放到硬件层上。嵌套滑动把头部推回0后子View接着滚动，
+     * 这时放在层上每帧都要重新绘制整个层
+     */
+    private boolean shouldLayerTarget(int offset) {
+        return offset != 0 && !mContentScrolling;
+    }
+
+    /**
+     * 子View开始或停止自己滚动
+     */
+    private void setContentScrolling(boolean scrolling) {
+        if (mContentScrolling != scrolling) {
+            mContentScrolling = scrolling;
+            if (mMoving) {
+                updateHardwareLayers();
+            }
+        }
+    }
+
+    /**
+     * 刷新中有进度动画，拉动中有箭头，这些状态下内容每帧都在变化
+     */
+    private static boolean isStaticState(int state) {
+        return state != PullState.PULL_TO_REFRESH && state != PullState.RELEASE_TO_REFRESH
+                && state != PullState.REFRESHING;
+    }
+
+    /**
+     * 松手或者平滑滚动结束，接着平滑滚动时重新选择硬件层，否则全部去掉
+     */
+    private void onMotionEnded() {
+        if (!mSettleAnimator.isRunning()) {
+            mMoving = false;
+        }
+        updateHardwareLayers();
+    }
+
     @Override
     public int getNestedScrollAxes() {
         return mNestedScrollingParentHelper.getNestedScrollAxes();
@@ -707,19 +1306,29 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
 
     @Override
     public void onStopNestedScroll(View target) {
-        mNestedScrollingParentHelper.onStopNestedScroll(target);
+        onStopNestedScroll(target, ViewCompat.TYPE_TOUCH);
+    }
+
+    @Override
+    public void onStopNestedScroll(View target, int type) {
+        mNestedScrollingParentHelper.onStopNestedScroll(target, type);
+        // Dispatch up our nested parent
+        stopNestedScroll(type);
+        if (type != ViewCompat.TYPE_TOUCH) {
+            mFlingTailAbsorbed = false;
+            setContentScrolling(false);
+            return;
+        }
+        if (mGestureRecorder != null) {
+            mGestureRecorder.onNestedEvent(GestureTrace.NESTED_STOP, 0, 0);
+        }
+        mContentScrolling = false;
         mNestedScrollInProgress = false;
         // Finish the spinner for nested scrolling if we ever consumed any
         // unconsumed nested scroll
-        if (mTotalUnconsumed > 0) {
-            finishDrag();
-            mTotalUnconsumed = 0;
-        } else if(mTotalLoadUnconsumed < 0) {
-            finishDrag();
-            mTotalLoadUnconsumed = 0;
-        }
-        // Dispatch up our nested parent
-        stopNestedScroll();
+        mEngine.onStopNestedScroll();
+        mMetricsTracker.onGestureEnd(mSettleAnimator.isRunning());
+        onMotionEnded();
     }
 
     /**
@@ -734,9 +1343,52 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
     @Override
     public void onNestedScroll(final View target, final int dxConsumed, final int dyConsumed,
                                final int dxUnconsumed, final int dyUnconsumed) {
+        onNestedScroll(target, dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed,
+                ViewCompat.TYPE_TOUCH);
+    }
+
+    /**
+     * 带滑动类型的onNestedScroll()，对应NestedScrollingParent2
+     */
+    @Override
+    public void onNestedScroll(View target, int dxConsumed, int dyConsumed,
+                               int dxUnconsumed, int dyUnconsumed, int type) {
+        final int[] consumed = mNestedScrollConsumed;
+        consumed[0] = 0;
+        consumed[1] = 0;
+        onNestedScroll(target, dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed, type, consumed);
+    }
+
+    /**
+     * 带滑动类型、并且报告消费距离的onNestedScroll()，对应NestedScrollingParent3.
+     * <p>拖动时剩下的距离先给外层，外层消费掉的也累加到consumed，再拉出头部或底部；惯性滑动时内容到头后剩下的距离
+     * 换算成速度交给头部或底部回弹，同一次惯性滑动之后剩下的距离都算作消费掉，
+     * 子View不会再显示边缘效果。不吸收时交给外层。</p>
+     * @param consumed 累加这里消费掉的距离
+     */
+    @Override
+    public void onNestedScroll(View target, int dxConsumed, int dyConsumed,
+                               int dxUnconsumed, int dyUnconsumed, int type, int[] consumed) {
+        // The target has just scrolled, its boundaries may have changed
+        mBoundaryCache.invalidate();
+        if (dyConsumed > 0) {
+            checkScrollLoad();
+        }
+        if (dyConsumed != 0) {
+            setContentScrolling(true);
+        }
+        if (type != ViewCompat.TYPE_TOUCH) {
+            onNestedFlingScroll(dyConsumed, dxUnconsumed, dyUnconsumed, type, consumed);
+            return;
+        }
+        if (mGestureRecorder != null) {
+            mGestureRecorder.onNestedEvent(GestureTrace.NESTED_SCROLL, dyConsumed, dyUnconsumed);
+        }
         // Dispatch up to the nested parent first
+        final int consumedBeforeParents = consumed[1];
         dispatchNestedScroll(dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed,
-                mParentOffsetInWindow);
+                mParentOffsetInWindow, type, consumed);
+        final int unconsumedAfterParents = dyUnconsumed - (consumed[1] - consumedBeforeParents);
 
         // This is a bit of a hack. Nested scrolling works from the bottom up, and as we are
         // sometimes between two nested scrolling views, we need a way to be able to know when any
@@ -744,19 +1396,46 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
         // 'offset in window 'functionality to see if we have been moved from the event.
         // This is a decent indication of whether we should take over the event stream or not.
         Log.d(TAG, "onNestedScroll dyConsumed=" + dyConsumed +" dyUnconsumed=" + dyUnconsumed);
-        final int dy = dyUnconsumed + mParentOffsetInWindow[1];
-        if (isPullRefreshEnabled && dy < 0 && !canChildScrollUp()) {
-            mTotalUnconsumed += Math.abs(dy);
-            float overScroll = (dy * DRAG_RATE);
-            moveDrag(overScroll);
-        } else if(isPullLoadEnabled && dy > 0 && !canChildScrollDown()) {
-            mTotalLoadUnconsumed += -dy;
-            float overScroll = (dy * DRAG_RATE);
-            moveDrag(overScroll);
+        //外层报告了消费距离时按报告的算，否则还是看外层有没有把自己移动了
+        final int dy = unconsumedAfterParents != dyUnconsumed || unconsumedAfterParents == 0
+                ? unconsumedAfterParents : dyUnconsumed + mParentOffsetInWindow[1];
+        if (mEngine.onNestedScroll(dy) != 0) {
+            //外层移动过的部分不算，只报告外层剩下的距离里被拉出头部或底部用掉的
+            consumed[1] += unconsumedAfterParents;
+        }
+        mMetricsTracker.onMoveEvent();
+    }
+
+    /**
+     * 子View惯性滑动的一帧
+     */
+    private void onNestedFlingScroll(int dyConsumed, int dxUnconsumed, int dyUnconsumed, int type,
+                                     int[] consumed) {
+        final long now = System.nanoTime();
+        //用相邻两帧的距离估计当前速度，第一帧用开始惯性滑动时的速度
+        final float velocity = mLastFlingNanos != 0 && now > mLastFlingNanos
+                ? (dyConsumed + dyUnconsumed) * 1e9f / (now - mLastFlingNanos) : mNestedFlingVelocity;
+        mLastFlingNanos = now;
+        if (dyUnconsumed == 0) {
+            return;
+        }
+        if (mFlingTailAbsorbed || mBouncing || mEngine.getOffset() != 0) {
+            //已经回弹了(可能是内容滚动的回调先发现到头的)，或者头部、底部正露在外面
+            mFlingTailAbsorbed = true;
+            consumed[1] += dyUnconsumed;
+            return;
+        }
+        if (isFlingAbsorbEnabled && mEngine.absorbFling(velocity)) {
+            //已经吸收了，不用再等内容滚动的回调
+            mFlingEdgeWatcher.stop();
+            mFlingTailAbsorbed = true;
+            consumed[1] += dyUnconsumed;
+            return;
         }
+        dispatchNestedScroll(0, 0, dxUnconsumed, dyUnconsumed, null, type, consumed);
     }
 
-    // NestedScrollingChild
+    // NestedScrollingChild3
 
     @Override
     public void setNestedScrollingEnabled(boolean enabled) {
@@ -773,16 +1452,31 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
         return mNestedScrollingChildHelper.startNestedScroll(axes);
     }
 
+    @Override
+    public boolean startNestedScroll(int axes, int type) {
+        return mNestedScrollingChildHelper.startNestedScroll(axes, type);
+    }
+
     @Override
     public void stopNestedScroll() {
         mNestedScrollingChildHelper.stopNestedScroll();
     }
 
+    @Override
+    public void stopNestedScroll(int type) {
+        mNestedScrollingChildHelper.stopNestedScroll(type);
+    }
+
     @Override
     public boolean hasNestedScrollingParent() {
         return mNestedScrollingChildHelper.hasNestedScrollingParent();
     }
 
+    @Override
+    public boolean hasNestedScrollingParent(int type) {
+        return mNestedScrollingChildHelper.hasNestedScrollingParent(type);
+    }
+
     @Override
     public boolean dispatchNestedScroll(int dxConsumed, int dyConsumed, int dxUnconsumed,
                                         int dyUnconsumed, int[] offsetInWindow) {
@@ -790,11 +1484,34 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
                 dxUnconsumed, dyUnconsumed, offsetInWindow);
     }
 
+    @Override
+    public boolean dispatchNestedScroll(int dxConsumed, int dyConsumed, int dxUnconsumed,
+                                        int dyUnconsumed, int[] offsetInWindow, int type) {
+        return mNestedScrollingChildHelper.dispatchNestedScroll(dxConsumed, dyConsumed,
+                dxUnconsumed, dyUnconsumed, offsetInWindow, type);
+    }
+
+    /**
+     * 外层消费掉的距离累加到consumed
+     */
+    @Override
+    public void dispatchNestedScroll(int dxConsumed, int dyConsumed, int dxUnconsumed,
+                                     int dyUnconsumed, int[] offsetInWindow, int type, int[] consumed) {
+        mNestedScrollingChildHelper.dispatchNestedScroll(dxConsumed, dyConsumed,
+                dxUnconsumed, dyUnconsumed, offsetInWindow, type, consumed);
+    }
+
     @Override
     public boolean dispatchNestedPreScroll(int dx, int dy, int[] consumed, int[] offsetInWindow) {
         return mNestedScrollingChildHelper.dispatchNestedPreScroll(dx, dy, consumed, offsetInWindow);
     }
 
+    @Override
+    public boolean dispatchNestedPreScroll(int dx, int dy, int[] consumed, int[] offsetInWindow,
+                                           int type) {
+        return mNestedScrollingChildHelper.dispatchNestedPreScroll(dx, dy, consumed, offsetInWindow, type);
+    }
+
     @Override
     public boolean onNestedPreFling(View target, float velocityX,
                                     float velocityY) {
@@ -804,6 +1521,19 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
     @Override
     public boolean onNestedFling(View target, float velocityX, float velocityY,
                                  boolean consumed) {
+        if (mGestureRecorder != null) {
+            mGestureRecorder.onNestedEvent(GestureTrace.NESTED_FLING, (int) velocityY, consumed ? 1 : 0);
+        }
+        mNestedFlingVelocity = velocityY;
+        if (isFlingAbsorbEnabled) {
+            if (consumed) {
+                //内容开始惯性滑动，跟踪它什么时候到头
+                mFlingEdgeWatcher.start(velocityY);
+            } else {
+                //内容已经到头，速度直接给Header或Footer
+                mEngine.absorbFling(velocityY);
+            }
+        }
         return dispatchNestedFling(velocityX, velocityY, consumed);
     }
 
@@ -816,4 +1546,210 @@ public class PullToRefreshLayout extends ViewGroup implements IPullToRefresh, Ne
     public boolean dispatchNestedPreFling(float velocityX, float velocityY) {
         return mNestedScrollingChildHelper.dispatchNestedPreFling(velocityX, velocityY);
     }
+
+    /**
+     * 把引擎的回调落到View上
+     */
+    private class EngineHost implements PullEngine.Host {
+        @Override
+        public void scrollToOffset(int offset) {
+            applyOffset(offset);
+            if (!mMoving && offset != 0) {
+                mMoving = true;
+                updateHardwareLayers();
+            } else if (mMoving && shouldLayerTarget(offset) != isTargetLayered) {
+                //回到0或者重新拉出
+                updateHardwareLayers();
+            }
+            //空闲时跳过了测量，露出来之前补上
+            if ((offset < 0 && mHeaderMeasure.isSkipped())
+                    || (offset > 0 && mFooterMeasure.isSkipped())) {
+                requestLayout();
+            }
+            mMetricsTracker.onOffsetChanged();
+        }
+
+        @Override
+        public void smoothScrollBy(int dy) {
+            PullToRefreshLayout.this.smoothScrollBy(dy);
+        }
+
+        @Override
+        public boolean canChildScrollUp() {
+            return PullToRefreshLayout.this.canChildScrollUp();
+        }
+
+        @Override
+        public boolean canChildScrollDown() {
+            return PullToRefreshLayout.this.canChildScrollDown();
+        }
+
+        @Override
+        public void onPullDownStateChanged(int state, float fraction) {
+            final long start = mMetricsTracker.beginCallback();
+            setPullDown(state, fraction);
+            mMetricsTracker.endCallback(start);
+            if (mMoving) {
+                updateHardwareLayers();
+            }
+        }
+
+        @Override
+        public void onPullUpStateChanged(int state, float fraction) {
+            final long start = mMetricsTracker.beginCallback();
+            setPullUp(state, fraction);
+            mMetricsTracker.endCallback(start);
+            if (mMoving) {
+                updateHardwareLayers();
+            }
+        }
+
+        @Override
+        public void onPullDownProgress(float fraction) {
+            if (mHeaderView instanceof OnPullProgressListener) {
+                final long start = mMetricsTracker.beginCallback();
+                ((OnPullProgressListener) mHeaderView).onPullProgress(fraction);
+                mMetricsTracker.endCallback(start);
+            }
+        }
+
+        @Override
+        public void onPullUpProgress(float fraction) {
+            if (mFooterView instanceof OnPullProgressListener) {
+                final long start = mMetricsTracker.beginCallback();
+                ((OnPullProgressListener) mFooterView).onPullProgress(fraction);
+                mMetricsTracker.endCallback(start);
+            }
+        }
+
+        @Override
+        public void bounce(int peakOffset) {
+            mBouncing = true;
+            PullToRefreshLayout.this.smoothScrollBy(peakOffset - mEngine.getOffset());
+        }
+
+        @Override
+        public void onRefresh(int token) {
+            mResetScheduler.onRefreshStarted();
+            mMetricsTracker.onRequestStarted(PullMetrics.REQUEST_REFRESH);
+            removeCallbacks(mRefreshTimeout);
+            if (mRefreshTimeoutMillis > 0) {
+                postDelayed(mRefreshTimeout, mRefreshTimeoutMillis);
+            }
+            if (mAsyncRefreshListener != null) {
+                mAsyncRefreshListener.onPullDownToRefresh(PullToRefreshLayout.this,
+                        new RefreshHandle(PullToRefreshLayout.this, token));
+            } else if (mOnRefreshListener != null) {
+                mOnRefreshListener.onPullDownToRefresh(PullToRefreshLayout.this);
+            }
+        }
+
+        @Override
+        public void onLoadMore(int token) {
+            mMetricsTracker.onRequestStarted(PullMetrics.REQUEST_LOAD_MORE);
+            if (mLoadMoreListener != null) {
+                mLoadMoreListener.onPullUpToLoadMore(PullToRefreshLayout.this);
+            }
+        }
+
+        @Override
+        public void onLoadMoreCancelled(int token) {
+            mMetricsTracker.onRequestCancelled(PullMetrics.REQUEST_LOAD_MORE);
+            if (mLoadMoreListener instanceof OnLoadMoreCancelListener) {
+                ((OnLoadMoreCancelListener) mLoadMoreListener)
+                        .onLoadMoreCancelled(PullToRefreshLayout.this, token);
+            }
+        }
+    }
+
+    /**
+     * 内容滚动后，把剩余的内容交给引擎判断是否到了预取阈值.
+     * 只在内容自己的位置变化时检查：头部或底部拉出时、加载失败后还没有新的滑动时都不检查
+     */
+    private void checkScrollLoad() {
+        if (mTarget == null || mLoadMoreListener == null || !mEngine.isScrollLoadEnabled()) {
+            return;
+        }
+        final int itemsBelow;
+        final int pixelsBelow;
+        final ScrollBoundaryDetector detector = mBoundaryCache.resolveDetector(mTarget);
+        if (detector instanceof ScrollExtentDetector) {
+            final ScrollExtentDetector extent = (ScrollExtentDetector) detector;
+            itemsBelow = extent.itemsBelow(mTarget);
+            pixelsBelow = extent.pixelsBelow(mTarget);
+        } else {
+            itemsBelow = -1;
+            pixelsBelow = canChildScrollDown() ? -1 : 0;
+        }
+        final int scrollY = mTarget.getScrollY();
+        //换了内容或者刚attach，只记下位置
+        final boolean baseline = mScrollLoadTarget != mTarget;
+        if (!baseline && itemsBelow == mLastItemsBelow && pixelsBelow == mLastPixelsBelow
+                && scrollY == mLastTargetScrollY) {
+            return;
+        }
+        mScrollLoadTarget = mTarget;
+        mLastItemsBelow = itemsBelow;
+        mLastPixelsBelow = pixelsBelow;
+        mLastTargetScrollY = scrollY;
+        if (baseline || !isScrollLoadArmed || mEngine.isLoading() || mEngine.getOffset() != 0) {
+            return;
+        }
+        mEngine.onContentScrolled(itemsBelow, pixelsBelow, System.nanoTime());
+    }
+
+    private class ResetCallback implements ResetScheduler.Callback {
+        @Override
+        public boolean onShowResult(int token, boolean success) {
+            return success ? mEngine.onRefreshComplete(token) : mEngine.onRefreshFailed(token);
+        }
+
+        @Override
+        public void onReset() {
+            mEngine.resetPullDown();
+        }
+    }
+
+    private class ContentScrollListener implements ViewTreeObserver.OnScrollChangedListener {
+        @Override
+        public void onScrollChanged() {
+            mBoundaryCache.invalidate();
+            checkScrollLoad();
+        }
+    }
+
+    private class SettleCallback implements SettleAnimator.Callback {
+        @Override
+        public void onSettleOffset(int offset) {
+            mEngine.offsetTo(offset);
+        }
+
+        @Override
+        public void onSettleFinished() {
+            mMetricsTracker.onSettleEnd();
+            if (mBouncing) {
+                int offset = mEngine.getOffset();
+                if (offset != 0) {
+                    //回弹到最远处，再收回去
+                    smoothScrollBy(-offset);
+                } else {
+                    mBouncing = false;
+                    mEngine.endFling();
+                }
+            }
+            onMotionEnded();
+        }
+    }
+
+    private class EdgeCallback implements FlingEdgeWatcher.Callback {
+        @Override
+        public boolean canScroll(int direction) {
+            return direction < 0 ? canChildScrollUp() : canChildScrollDown();
+        }
+
+        @Override
+        public void onEdgeReached(float velocity) {
+            mEngine.absorbFling(velocity);
+        }
+    }
 }
@@ -0,0 +1,65 @@
+package com.pullrefresh;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * 一次刷新的结果句柄，可以在任意线程调用，只有第一次调用有效.
+ * <p>刷新已经超时、失败或者被新的刷新替代后，调用会被忽略。其他线程的调用通过主线程的Handler转过去，
+ * 不用View.post()：API 24以前View没有attach时，post的任务放在调用线程的队列里，不会执行。</p>
+ */
+public final class RefreshHandle {
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private final PullToRefreshLayout mLayout;
+    private final int mToken;
+
+    RefreshHandle(PullToRefreshLayout layout, int token) {
+        mLayout = layout;
+        mToken = token;
+    }
+
+    public int getToken() {
+        return mToken;
+    }
+
+    /**
+     * 可以在任意线程调用，结果只是当时的状态，之后可能马上过期
+     * @return 这次刷新还在进行中，结果还有用
+     */
+    public boolean isActive() {
+        return mLayout.isTokenActive(mToken);
+    }
+
+    /**
+     * 刷新成功
+     */
+    public void complete() {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            mLayout.setPullDownRefreshComplete(mToken);
+        } else {
+            MAIN_HANDLER.post(new Runnable() {
+                @Override
+                public void run() {
+                    mLayout.setPullDownRefreshComplete(mToken);
+                }
+            });
+        }
+    }
+
+    /**
+     * 刷新失败，显示刷新失败后自动复位
+     */
+    public void fail() {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            mLayout.setPullDownRefreshFailed(mToken);
+        } else {
+            MAIN_HANDLER.post(new Runnable() {
+                @Override
+                public void run() {
+                    mLayout.setPullDownRefreshFailed(mToken);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.pullrefresh;
+
+import android.os.SystemClock;
+import android.view.View;
+
+/**
+ * 刷新结束后显示结果并复位头部，可以取消，整个刷新过程不分配对象.
+ * <p>刷新中的状态至少显示最短时长，数据回来得太快时先等一会儿再显示结果，避免闪一下；
+ * 结果(成功或失败)再停留一段时间后复位。同一个Runnable反复post，新的刷新开始时取消旧的。</p>
+ */
+class ResetScheduler implements Runnable {
+    /**
+     * 结果默认停留的时长
+     */
+    static final long DEFAULT_HOLD_MILLIS = 500;
+
+    interface Callback {
+        /**
+         * 显示刷新结果
+         * @return false表示这次刷新已经过期，不再复位
+         */
+        boolean onShowResult(int token, boolean success);
+
+        void onReset();
+    }
+
+    private static final int IDLE = 0;
+    //等待刷新中的状态显示够最短时长
+    private static final int WAIT_DWELL = 1;
+    //结果正在显示，等待复位
+    private static final int HOLD_RESULT = 2;
+
+    private final View mView;
+    private final Callback mCallback;
+    private long mMinDwellMillis;
+    private long mSuccessHoldMillis = DEFAULT_HOLD_MILLIS;
+    private long mFailHoldMillis = DEFAULT_HOLD_MILLIS;
+    private long mStartMillis;
+    private int mPhase = IDLE;
+    private int mToken;
+    private boolean mSuccess;
+
+    ResetScheduler(View view, Callback callback) {
+        mView = view;
+        mCallback = callback;
+    }
+
+    void setMinDwell(long minDwellMillis) {
+        mMinDwellMillis = minDwellMillis;
+    }
+
+    void setResultHold(long successHoldMillis, long failHoldMillis) {
+        mSuccessHoldMillis = successHoldMillis;
+        mFailHoldMillis = failHoldMillis;
+    }
+
+    /**
+     * 开始刷新，取消上一次还没执行的复位
+     */
+    void onRefreshStarted() {
+        cancel();
+        mStartMillis = SystemClock.uptimeMillis();
+    }
+
+    /**
+     * 刷新结束，安排显示结果和复位
+     * @return false表示已经安排过了，重复的结果被忽略
+     */
+    boolean schedule(int token, boolean success) {
+        if (mPhase != IDLE) {
+            return false;
+        }
+        mToken = token;
+        mSuccess = success;
+        final long remaining = mStartMillis + mMinDwellMillis - SystemClock.uptimeMillis();
+        if (remaining > 0) {
+            mPhase = WAIT_DWELL;
+            mView.postDelayed(this, remaining);
+        } else {
+            showResult();
+        }
+        return true;
+    }
+
+    void cancel() {
+        mView.removeCallbacks(this);
+        mPhase = IDLE;
+    }
+
+    boolean isScheduled() {
+        return mPhase != IDLE;
+    }
+
+    @Override
+    public void run() {
+        if (mPhase == WAIT_DWELL) {
+            showResult();
+        } else if (mPhase == HOLD_RESULT) {
+            mPhase = IDLE;
+            mCallback.onReset();
+        }
+    }
+
+    private void showResult() {
+        if (!mCallback.onShowResult(mToken, mSuccess)) {
+            mPhase = IDLE;
+            return;
+        }
+        mPhase = HOLD_RESULT;
+        mView.postDelayed(this, mSuccess ? mSuccessHoldMillis : mFailHoldMillis);
+    }
+}
@@ -12,12 +12,16 @@ import android.widget.TextView;
 /**
  * 显示一个旋转图标的式样.
  */
-public class RotateLoadingLayout extends RelativeLayout implements LoadingLayout {
+public class RotateLoadingLayout extends RelativeLayout implements LoadingLayout, OnPullProgressListener,
+        OnRefreshFailListener {
     private DisplayMetrics displayMetrics;
     private TextView tv_state;
     private ProgressBar pb_loading;
     private ImageView iv_arrow;
-    private boolean arrowRotate;
+    private ArrowRotator arrowRotator;
+    //占位时的高度，和布局文件里的一致
+    private final int placeholderHeight;
+    private boolean isInflated;
 
     public RotateLoadingLayout(Context context) {
         this(context, null);
@@ -29,42 +33,64 @@ public class RotateLoadingLayout extends RelativeLayout implements LoadingLayout
 
     public RotateLoadingLayout(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        init(context);
+        displayMetrics = context.getResources().getDisplayMetrics();
+        placeholderHeight = context.getResources().getDimensionPixelSize(R.dimen.loading_layout_height);
     }
 
-    private void init(Context context) {
-        displayMetrics = context.getResources().getDisplayMetrics();
-        LayoutInflater.from(context).inflate(R.layout.layout_footer_loading, this, true);
+    /**
+     * 创建真正的布局。构造时只是一个空的占位，第一次显示时才创建，
+     * 也可以在空闲时提前调用.
+     */
+    public void ensureInflated() {
+        if (isInflated) {
+            return;
+        }
+        isInflated = true;
+        LayoutInflater.from(getContext()).inflate(R.layout.layout_footer_loading, this, true);
         tv_state = (TextView) findViewById(R.id.tv_state);
         pb_loading = (ProgressBar) findViewById(R.id.pb_loading);
         iv_arrow = (ImageView) findViewById(R.id.iv_arrow);
-        onReset();
+        arrowRotator = new ArrowRotator(iv_arrow);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (isInflated) {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        } else {
+            setMeasuredDimension(getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec),
+                    resolveSize(placeholderHeight, heightMeasureSpec));
+        }
+    }
+
+    @Override
+    public void onPullProgress(float fraction) {
+        if (isInflated && iv_arrow.getVisibility() == VISIBLE) {
+            arrowRotator.scrub(fraction);
+        }
     }
 
     @Override
     public void onPullToRefresh(float fraction) {
+        ensureInflated();
         tv_state.setText(R.string.pull_up_load);
         pb_loading.setVisibility(GONE);
         iv_arrow.setVisibility(VISIBLE);
-        if(arrowRotate) {
-            arrowRotate = false;
-            ImageViewRotationHelper.rotateReverseObject(iv_arrow);
-        }
+        arrowRotator.scrub(fraction);
     }
 
     @Override
     public void onReleaseToRefresh() {
+        ensureInflated();
         tv_state.setText(R.string.release_load);
         pb_loading.setVisibility(GONE);
         iv_arrow.setVisibility(VISIBLE);
-        if(!arrowRotate) {
-            arrowRotate = true;
-            ImageViewRotationHelper.rotateObject(iv_arrow);
-        }
+        arrowRotator.snap(true);
     }
 
     @Override
     public void onRefreshing() {
+        ensureInflated();
         tv_state.setText(R.string.loading);
         pb_loading.setVisibility(VISIBLE);
         iv_arrow.setVisibility(GONE);
@@ -75,10 +101,22 @@ public class RotateLoadingLayout extends RelativeLayout implements LoadingLayout
 
     }
 
+    @Override
+    public void onRefreshFail() {
+        ensureInflated();
+        tv_state.setText(R.string.load_fail);
+        pb_loading.setVisibility(GONE);
+        iv_arrow.setVisibility(GONE);
+    }
+
     @Override
     public void onReset() {
+        if (!isInflated) {
+            return;
+        }
         tv_state.setText(null);
         pb_loading.setVisibility(GONE);
         iv_arrow.setVisibility(VISIBLE);
+        arrowRotator.reset();
     }
 }
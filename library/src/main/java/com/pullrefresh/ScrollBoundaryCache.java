@@ -0,0 +1,77 @@
+package com.pullrefresh;
+
+import android.view.View;
+
+/**
+ * 缓存内容View是否到顶、到底的结果，同一帧里的多个事件不重复计算.
+ * <p>内容滚动时(ViewTreeObserver的滚动回调、嵌套滑动回调)或者进入新的一帧时由PullToRefreshLayout调用{@link #invalidate()}。</p>
+ */
+class ScrollBoundaryCache {
+    private ScrollBoundaryDetector mDetector;
+    private boolean mCustomDetector;
+    private long mFrameTime = -1;
+    private boolean mUpValid;
+    private boolean mDownValid;
+    private boolean mCanScrollUp;
+    private boolean mCanScrollDown;
+
+    /**
+     * @param detector null表示按内容View的类型自动选择
+     */
+    void setDetector(ScrollBoundaryDetector detector) {
+        mDetector = detector;
+        mCustomDetector = detector != null;
+        invalidate();
+    }
+
+    ScrollBoundaryDetector getDetector() {
+        return mDetector;
+    }
+
+    /**
+     * 内容View换了，没有自定义的实现时重新选择
+     */
+    void onTargetChanged(View target) {
+        if (!mCustomDetector) {
+            mDetector = target == null ? null : ScrollBoundaryDetectors.forTarget(target);
+        }
+        invalidate();
+    }
+
+    boolean canScrollUp(View target, long frameTime) {
+        checkFrame(frameTime);
+        if (!mUpValid) {
+            mCanScrollUp = resolveDetector(target).canScrollUp(target);
+            mUpValid = true;
+        }
+        return mCanScrollUp;
+    }
+
+    boolean canScrollDown(View target, long frameTime) {
+        checkFrame(frameTime);
+        if (!mDownValid) {
+            mCanScrollDown = resolveDetector(target).canScrollDown(target);
+            mDownValid = true;
+        }
+        return mCanScrollDown;
+    }
+
+    void invalidate() {
+        mUpValid = false;
+        mDownValid = false;
+    }
+
+    private void checkFrame(long frameTime) {
+        if (frameTime != mFrameTime) {
+            mFrameTime = frameTime;
+            invalidate();
+        }
+    }
+
+    ScrollBoundaryDetector resolveDetector(View target) {
+        if (mDetector == null) {
+            mDetector = ScrollBoundaryDetectors.forTarget(target);
+        }
+        return mDetector;
+    }
+}
@@ -0,0 +1,20 @@
+package com.pullrefresh;
+
+import android.view.View;
+
+/**
+ * 判断内容View是否已经滚动到顶部或底部.
+ * <p>拉动过程中每个事件都会调用，实现应该是O(1)的，不要遍历子View。
+ * 默认的实现见{@link ScrollBoundaryDetectors#forTarget(View)}，自定义的内容View可以自己实现。</p>
+ */
+public interface ScrollBoundaryDetector {
+    /**
+     * @return 内容还能向上滚动，即还没有到达顶部
+     */
+    boolean canScrollUp(View target);
+
+    /**
+     * @return 内容还能向下滚动，即还没有到达底部
+     */
+    boolean canScrollDown(View target);
+}
@@ -0,0 +1,267 @@
+package com.pullrefresh;
+
+import android.support.v4.view.ViewCompat;
+import android.support.v4.widget.NestedScrollView;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.webkit.WebView;
+import android.widget.AbsListView;
+import android.widget.ScrollView;
+
+/**
+ * 常见内容View的{@link ScrollBoundaryDetector}实现.
+ */
+public final class ScrollBoundaryDetectors {
+    /**
+     * RecyclerView是可选的依赖，没有引入时不能加载RecyclerViewDetector
+     */
+    private static final boolean HAS_RECYCLER_VIEW = hasClass("android.support.v7.widget.RecyclerView");
+
+    /**
+     * 通用的实现，ViewCompat.canScrollVertically()
+     */
+    public static final ScrollBoundaryDetector DEFAULT = new ScrollExtentDetector() {
+        @Override
+        public boolean canScrollUp(View target) {
+            return ViewCompat.canScrollVertically(target, -1);
+        }
+
+        @Override
+        public boolean canScrollDown(View target) {
+            return ViewCompat.canScrollVertically(target, 1);
+        }
+
+        @Override
+        public int itemsBelow(View target) {
+            return -1;
+        }
+
+        @Override
+        public int pixelsBelow(View target) {
+            //只知道有没有到底
+            return canScrollDown(target) ? -1 : 0;
+        }
+    };
+
+    /**
+     * ListView、GridView，只看第一个和最后一个可见的子View
+     */
+    public static final ScrollBoundaryDetector ABS_LIST_VIEW = new ScrollExtentDetector() {
+        @Override
+        public boolean canScrollUp(View target) {
+            final AbsListView listView = (AbsListView) target;
+            final int childCount = listView.getChildCount();
+            return childCount > 0
+                    && (listView.getFirstVisiblePosition() > 0
+                    || listView.getChildAt(0).getTop() < listView.getPaddingTop());
+        }
+
+        @Override
+        public boolean canScrollDown(View target) {
+            final AbsListView listView = (AbsListView) target;
+            final int childCount = listView.getChildCount();
+            return childCount > 0
+                    && (listView.getLastVisiblePosition() < listView.getCount() - 1
+                    || listView.getChildAt(childCount - 1).getBottom()
+                    > listView.getHeight() - listView.getPaddingBottom());
+        }
+
+        @Override
+        public int itemsBelow(View target) {
+            final AbsListView listView = (AbsListView) target;
+            if (listView.getChildCount() == 0) {
+                return listView.getCount() == 0 ? 0 : -1;
+            }
+            return listView.getCount() - 1 - listView.getLastVisiblePosition();
+        }
+
+        @Override
+        public int pixelsBelow(View target) {
+            final AbsListView listView = (AbsListView) target;
+            final int childCount = listView.getChildCount();
+            if (childCount == 0) {
+                return listView.getCount() == 0 ? 0 : -1;
+            }
+            final int lastBottom = listView.getChildAt(childCount - 1).getBottom();
+            final int overflow = Math.max(0,
+                    lastBottom - (listView.getHeight() - listView.getPaddingBottom()));
+            //还没显示出来的item按可见item的平均高度估算
+            final int itemsBelow = listView.getCount() - 1 - listView.getLastVisiblePosition();
+            final int averageHeight = (lastBottom - listView.getChildAt(0).getTop()) / childCount;
+            return overflow + itemsBelow * averageHeight;
+        }
+    };
+
+    /**
+     * ScrollView、NestedScrollView，比较scrollY和唯一子View的高度
+     */
+    public static final ScrollBoundaryDetector SCROLL_VIEW = new ScrollExtentDetector() {
+        @Override
+        public boolean canScrollUp(View target) {
+            return target.getScrollY() > 0;
+        }
+
+        @Override
+        public boolean canScrollDown(View target) {
+            return pixelsBelow(target) > 0;
+        }
+
+        @Override
+        public int itemsBelow(View target) {
+            return -1;
+        }
+
+        @Override
+        public int pixelsBelow(View target) {
+            final ViewGroup scrollView = (ViewGroup) target;
+            if (scrollView.getChildCount() == 0) {
+                return 0;
+            }
+            final int range = scrollView.getChildAt(0).getHeight()
+                    - (target.getHeight() - target.getPaddingTop() - target.getPaddingBottom());
+            return Math.max(0, range - target.getScrollY());
+        }
+    };
+
+    /**
+     * WebView，比较scrollY和网页内容的高度
+     */
+    public static final ScrollBoundaryDetector WEB_VIEW = new ScrollExtentDetector() {
+        @Override
+        public boolean canScrollUp(View target) {
+            return target.getScrollY() > 0;
+        }
+
+        @Override
+        public boolean canScrollDown(View target) {
+            return pixelsBelow(target) > 0;
+        }
+
+        @Override
+        public int itemsBelow(View target) {
+            return -1;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public int pixelsBelow(View target) {
+            final WebView webView = (WebView) target;
+            final int contentHeight = (int) (webView.getContentHeight() * webView.getScale());
+            return Math.max(0, contentHeight - webView.getHeight() - webView.getScrollY());
+        }
+    };
+
+    private ScrollBoundaryDetectors() {
+    }
+
+    /**
+     * 根据内容View的类型选择实现，不认识的类型用{@link #DEFAULT}
+     */
+    public static ScrollBoundaryDetector forTarget(View target) {
+        if (HAS_RECYCLER_VIEW && RecyclerViewDetector.accepts(target)) {
+            return RecyclerViewDetector.INSTANCE;
+        } else if (target instanceof AbsListView) {
+            return ABS_LIST_VIEW;
+        } else if (target instanceof ScrollView || target instanceof NestedScrollView) {
+            return SCROLL_VIEW;
+        } else if (target instanceof WebView) {
+            return WEB_VIEW;
+        }
+        return DEFAULT;
+    }
+
+    private static boolean hasClass(String className) {
+        try {
+            Class.forName(className);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * RecyclerView，LinearLayoutManager和GridLayoutManager只看第一个和最后一个子View的位置，
+     * 其它LayoutManager用通用的实现
+     */
+    private static final class RecyclerViewDetector implements ScrollExtentDetector {
+        static final RecyclerViewDetector INSTANCE = new RecyclerViewDetector();
+
+        static boolean accepts(View target) {
+            return target instanceof RecyclerView;
+        }
+
+        @Override
+        public boolean canScrollUp(View target) {
+            final RecyclerView recyclerView = (RecyclerView) target;
+            final LinearLayoutManager layoutManager = linearLayoutManager(recyclerView);
+            if (layoutManager == null) {
+                return DEFAULT.canScrollUp(target);
+            }
+            final int childCount = layoutManager.getChildCount();
+            if (childCount == 0) {
+                return false;
+            }
+            final View first = layoutManager.getChildAt(0);
+            return layoutManager.getPosition(first) > 0
+                    || layoutManager.getDecoratedTop(first) < recyclerView.getPaddingTop();
+        }
+
+        @Override
+        public boolean canScrollDown(View target) {
+            final RecyclerView recyclerView = (RecyclerView) target;
+            final LinearLayoutManager layoutManager = linearLayoutManager(recyclerView);
+            if (layoutManager == null) {
+                return DEFAULT.canScrollDown(target);
+            }
+            final int childCount = layoutManager.getChildCount();
+            if (childCount == 0) {
+                return false;
+            }
+            final View last = layoutManager.getChildAt(childCount - 1);
+            return layoutManager.getPosition(last) < layoutManager.getItemCount() - 1
+                    || layoutManager.getDecoratedBottom(last)
+                    > recyclerView.getHeight() - recyclerView.getPaddingBottom();
+        }
+
+        @Override
+        public int itemsBelow(View target) {
+            final LinearLayoutManager layoutManager = linearLayoutManager((RecyclerView) target);
+            if (layoutManager == null) {
+                return -1;
+            }
+            final int childCount = layoutManager.getChildCount();
+            if (childCount == 0) {
+                return layoutManager.getItemCount() == 0 ? 0 : -1;
+            }
+            return layoutManager.getItemCount() - 1
+                    - layoutManager.getPosition(layoutManager.getChildAt(childCount - 1));
+        }
+
+        @Override
+        public int pixelsBelow(View target) {
+            final RecyclerView recyclerView = (RecyclerView) target;
+            //LayoutManager根据可见的item估算
+            final int pixels = recyclerView.computeVerticalScrollRange()
+                    - recyclerView.computeVerticalScrollOffset()
+                    - recyclerView.computeVerticalScrollExtent();
+            return Math.max(0, pixels);
+        }
+
+        /**
+         * 只有竖直方向、没有反转的LinearLayoutManager，子View的顺序和位置顺序一致
+         */
+        private static LinearLayoutManager linearLayoutManager(RecyclerView recyclerView) {
+            final RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+            if (layoutManager instanceof LinearLayoutManager) {
+                final LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
+                if (linearLayoutManager.getOrientation() == LinearLayoutManager.VERTICAL
+                        && !linearLayoutManager.getReverseLayout()) {
+                    return linearLayoutManager;
+                }
+            }
+            return null;
+        }
+    }
+}
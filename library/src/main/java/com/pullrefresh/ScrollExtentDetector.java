@@ -0,0 +1,19 @@
+package com.pullrefresh;
+
+import android.view.View;
+
+/**
+ * 除了是否到顶、到底，还能算出可见区域下面还剩多少内容，用来提前自动加载更多.
+ * 同样要求是O(1)的。
+ */
+public interface ScrollExtentDetector extends ScrollBoundaryDetector {
+    /**
+     * @return 可见区域下面还有多少个item，不知道时返回-1
+     */
+    int itemsBelow(View target);
+
+    /**
+     * @return 可见区域下面还有多少像素，不知道时返回-1
+     */
+    int pixelsBelow(View target);
+}
@@ -0,0 +1,121 @@
+package com.pullrefresh;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.support.v4.view.ViewCompat;
+import android.view.Choreographer;
+import android.view.View;
+
+/**
+ * 在每一帧(vsync)驱动{@link Settler}，代替Scroller加computeScroll()的方式.
+ * <p>每一帧只把新的偏移量交给回调，不会调用invalidate()重绘整个容器。
+ * JELLY_BEAN以上使用Choreographer，以下用postOnAnimation()。</p>
+ */
+class SettleAnimator implements Runnable {
+
+    interface Callback {
+        void onSettleOffset(int offset);
+
+        void onSettleFinished();
+    }
+
+    private final View mView;
+    private final Callback mCallback;
+    private Settler mSettler;
+    private Object mFrameCallback;
+    private boolean mRunning;
+
+    SettleAnimator(View view, Settler settler, Callback callback) {
+        mView = view;
+        mSettler = settler;
+        mCallback = callback;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mFrameCallback = new FrameCallback();
+        }
+    }
+
+    void setSettler(Settler settler) {
+        abort();
+        mSettler = settler;
+    }
+
+    Settler getSettler() {
+        return mSettler;
+    }
+
+    boolean isRunning() {
+        return mRunning;
+    }
+
+    /**
+     * 从from移动到to
+     */
+    void start(int from, int to) {
+        mSettler.start(from, to, System.nanoTime());
+        if (mSettler.isFinished()) {
+            stop();
+            mCallback.onSettleOffset(to);
+            mCallback.onSettleFinished();
+            return;
+        }
+        if (!mRunning) {
+            mRunning = true;
+            postFrame();
+        }
+    }
+
+    /**
+     * 停在当前位置，不回调onSettleFinished()
+     */
+    void abort() {
+        mSettler.abort();
+        stop();
+    }
+
+    private void stop() {
+        if (!mRunning) {
+            return;
+        }
+        mRunning = false;
+        if (mFrameCallback != null) {
+            Choreographer.getInstance().removeFrameCallback((FrameCallback) mFrameCallback);
+        } else {
+            mView.removeCallbacks(this);
+        }
+    }
+
+    private void postFrame() {
+        if (mFrameCallback != null) {
+            Choreographer.getInstance().postFrameCallback((FrameCallback) mFrameCallback);
+        } else {
+            ViewCompat.postOnAnimation(mView, this);
+        }
+    }
+
+    private void doFrame(long frameTimeNanos) {
+        if (!mRunning) {
+            return;
+        }
+        boolean more = mSettler.computeOffset(frameTimeNanos);
+        mCallback.onSettleOffset(mSettler.getCurrentOffset());
+        if (more) {
+            postFrame();
+        } else {
+            mRunning = false;
+            mCallback.onSettleFinished();
+        }
+    }
+
+    @Override
+    public void run() {
+        doFrame(System.nanoTime());
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private class FrameCallback implements Choreographer.FrameCallback {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            SettleAnimator.this.doFrame(frameTimeNanos);
+        }
+    }
+}
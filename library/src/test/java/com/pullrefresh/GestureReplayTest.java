@@ -0,0 +1,130 @@
+package com.pullrefresh;
+
+import android.app.Activity;
+import android.view.LayoutInflater;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * 在Robolectric里回放一次下拉刷新，检查偏移量、状态切换和每个事件的耗时.
+ * QA设备上录制的trace也可以用同样的方式回放。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21)
+public class GestureReplayTest {
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+    private static final long FRAME_MILLIS = 16;
+    /**
+     * 每个事件的平均耗时上限，JVM上只用来发现明显的退化
+     */
+    private static final long EVENT_BUDGET_NANOS = 2000000L;
+
+    private PullToRefreshLayout mLayout;
+    private GestureReplayer mReplayer;
+
+    @Before
+    public void setUp() throws Exception {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        View root = LayoutInflater.from(activity).inflate(R.layout.layout_refresh_list, null);
+        mLayout = (PullToRefreshLayout) root.findViewById(R.id.swipeToLoadLayout);
+        root.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        root.layout(0, 0, WIDTH, HEIGHT);
+        mReplayer = new GestureReplayer(mLayout, new GestureReplayer.Clock() {
+            @Override
+            public void advanceTo(long uptimeMillis) {
+                Robolectric.getForegroundThreadScheduler().advanceTo(uptimeMillis);
+            }
+        });
+    }
+
+    @Test
+    public void replayPullDown_refreshesAndSettles() throws Exception {
+        final int headerHeight = mLayout.getEngine().getHeaderHeight();
+        GestureTrace trace = readBack(pullDownTrace(headerHeight * 4));
+        mReplayer.replay(trace);
+
+        final int last = mReplayer.size() - 1;
+        final int beforeUp = last - 1;
+        assertTrue(mReplayer.getOffset(beforeUp) <= -headerHeight);
+        assertEquals(PullState.RELEASE_TO_REFRESH, mReplayer.getPullDownState(beforeUp));
+        assertEquals(PullState.REFRESHING, mReplayer.getPullDownState(last));
+
+        //松手后平滑滚动到刷新位置
+        Robolectric.getForegroundThreadScheduler().advanceBy(1000);
+        assertEquals(-headerHeight, mLayout.getEngine().getOffset());
+
+        long total = 0;
+        for (int i = 0; i < mReplayer.size(); i++) {
+            total += mReplayer.getEventNanos(i);
+        }
+        assertTrue("average " + total / mReplayer.size() + "ns/event",
+                total / mReplayer.size() < EVENT_BUDGET_NANOS);
+    }
+
+    @Test
+    public void recorder_capturesReplayedEvents() throws Exception {
+        GestureRecorder recorder = new GestureRecorder();
+        mLayout.setGestureRecorder(recorder);
+        recorder.start();
+        GestureTrace trace = pullDownTrace(200);
+        mReplayer.replay(trace);
+        GestureTrace recorded = recorder.stop();
+
+        assertEquals(trace.size(), recorded.size());
+        for (int i = 0; i < trace.size(); i++) {
+            assertEquals(trace.getArg0(i), recorded.getArg0(i));
+            assertEquals(trace.getPointerCount(i), recorded.getPointerCount(i));
+            assertEquals(trace.getHistorySize(i), recorded.getHistorySize(i));
+            for (int s = 0; s <= trace.getHistorySize(i); s++) {
+                assertEquals(trace.getX(i, s, 0), recorded.getX(i, s, 0), 0.01f);
+                assertEquals(trace.getY(i, s, 0), recorded.getY(i, s, 0), 0.01f);
+            }
+        }
+    }
+
+    /**
+     * 按下，每帧向下移动同样的距离，松手
+     */
+    private static GestureTrace pullDownTrace(int distance) {
+        GestureTrace trace = new GestureTrace();
+        final int moves = 40;
+        final float step = (float) distance / moves;
+        long time = 0;
+        float y = 100;
+        trace.addTouch(time, MotionEvent.ACTION_DOWN, 0, WIDTH / 2f, y);
+        for (int i = 0; i < moves; i++) {
+            //每帧两个采样点，前一个是历史采样点
+            trace.beginTouch(time + FRAME_MILLIS, MotionEvent.ACTION_MOVE);
+            trace.addPointer(0);
+            trace.addSample(time + FRAME_MILLIS / 2);
+            trace.addPosition(WIDTH / 2f, y + step / 2);
+            time += FRAME_MILLIS;
+            y += step;
+            trace.addSample(time);
+            trace.addPosition(WIDTH / 2f, y);
+            trace.endTouch();
+        }
+        trace.addTouch(time + FRAME_MILLIS, MotionEvent.ACTION_UP, 0, WIDTH / 2f, y);
+        return trace;
+    }
+
+    private static GestureTrace readBack(GestureTrace trace) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        trace.writeTo(out);
+        return GestureTrace.readFrom(new ByteArrayInputStream(out.toByteArray()));
+    }
+}
@@ -0,0 +1,50 @@
+package com.pullrefresh.benchmark;
+
+/**
+ * 生成合成的事件流，模拟一次完整的拉动.
+ */
+final class GestureStreams {
+    /**
+     * 一次手势包含的移动事件数
+     */
+    static final int EVENTS_PER_GESTURE = 120;
+
+    private GestureStreams() {
+    }
+
+    /**
+     * 触摸拖动的手指位移：先向下拉到maxDistance，再往回推一段，末尾带一点抖动，
+     * 这样会经过PULL_TO_REFRESH和RELEASE_TO_REFRESH之间的来回切换
+     * @param maxDistance 手指向下移动的最大距离
+     */
+    static float[] touchDeltas(float maxDistance) {
+        float[] deltas = new float[EVENTS_PER_GESTURE];
+        int pullEvents = EVENTS_PER_GESTURE * 2 / 3;
+        float step = maxDistance / pullEvents;
+        for (int i = 0; i < pullEvents; i++) {
+            deltas[i] = step;
+        }
+        for (int i = pullEvents; i < EVENTS_PER_GESTURE; i++) {
+            deltas[i] = (i & 1) == 0 ? -step : step * 0.5f;
+        }
+        return deltas;
+    }
+
+    /**
+     * 嵌套滑动的距离：负数表示子View到顶后没有消费的下拉距离(onNestedScroll)，
+     * 正数表示往回推时先交给父View消费的距离(onNestedPreScroll)
+     * @param maxDistance 下拉的最大距离
+     */
+    static int[] nestedDeltas(int maxDistance) {
+        int[] deltas = new int[EVENTS_PER_GESTURE];
+        int half = EVENTS_PER_GESTURE / 2;
+        int step = Math.max(1, maxDistance / half);
+        for (int i = 0; i < half; i++) {
+            deltas[i] = -step;
+        }
+        for (int i = half; i < EVENTS_PER_GESTURE; i++) {
+            deltas[i] = step / 2;
+        }
+        return deltas;
+    }
+}
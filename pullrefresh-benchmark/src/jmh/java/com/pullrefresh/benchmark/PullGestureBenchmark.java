@@ -0,0 +1,175 @@
+package com.pullrefresh.benchmark;
+
+import com.pullrefresh.PullEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 拖动热路径的基准测试，一次操作就是一个事件，结果单位是ns/event.
+ * <p>PullToRefreshLayout#onTouchEvent()的ACTION_MOVE最终调用{@link PullEngine#dragBy(float)}，
+ * onNestedScroll()/onNestedPreScroll()调用引擎对应的方法，这里用合成的事件流直接驱动这些入口，
+ * 包括状态分发和Header/Footer的回调。</p>
+ * 配合gc profiler运行，gc.alloc.rate.norm就是每个事件分配的字节数，正常情况下应该是0。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PullGestureBenchmark {
+    private static final int HEADER_HEIGHT = 150;
+    private static final int FOOTER_HEIGHT = 150;
+
+    private BenchmarkHost mHost;
+    private PullEngine mEngine;
+    private float[] mTouchDeltas;
+    private int[] mNestedDeltas;
+    private int mIndex;
+    /**
+     * 状态边沿触发，对比每次移动都分发状态的开销
+     */
+    @Param({"false", "true"})
+    public boolean edgeTriggered;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        mHost = new BenchmarkHost();
+        mEngine = new PullEngine(mHost);
+        mHost.engine = mEngine;
+        mEngine.setEdgeTriggered(edgeTriggered);
+        mEngine.setHasHeader(true);
+        mEngine.setHasFooter(true);
+        mEngine.setHeaderHeight(HEADER_HEIGHT);
+        mEngine.setFooterHeight(FOOTER_HEIGHT);
+        mTouchDeltas = GestureStreams.touchDeltas(HEADER_HEIGHT * 4);
+        mNestedDeltas = GestureStreams.nestedDeltas(HEADER_HEIGHT * 4);
+        mIndex = 0;
+    }
+
+    /**
+     * 触摸路径：ACTION_MOVE -> moveDrag -> 状态分发
+     */
+    @Benchmark
+    public int touchMove() {
+        float deltaY = mTouchDeltas[mIndex];
+        if (mEngine.canDrag(deltaY)) {
+            mEngine.dragBy(deltaY);
+        }
+        if (++mIndex == mTouchDeltas.length) {
+            endGesture();
+        }
+        return mHost.state;
+    }
+
+    /**
+     * 嵌套滑动路径：onNestedScroll/onNestedPreScroll -> moveDrag -> 状态分发
+     */
+    @Benchmark
+    public int nestedScroll() {
+        if (mIndex == 0) {
+            mEngine.onNestedScrollAccepted();
+        }
+        int dy = mNestedDeltas[mIndex];
+        int consumed = 0;
+        if (dy < 0) {
+            mEngine.onNestedScroll(dy);
+        } else {
+            consumed = mEngine.onNestedPreScroll(dy);
+        }
+        if (++mIndex == mNestedDeltas.length) {
+            mEngine.onStopNestedScroll();
+            endGesture();
+        }
+        return consumed + mHost.state;
+    }
+
+    private void endGesture() {
+        mIndex = 0;
+        mEngine.finishDrag();
+        if (mEngine.isRefreshing()) {
+            mEngine.onRefreshComplete();
+            mEngine.resetPullDown();
+        } else if (mEngine.isLoading()) {
+            mEngine.resetPullUp();
+        }
+    }
+
+    /**
+     * 平滑滚动直接跳到终点，其它回调只记录状态，测的是引擎本身的开销
+     */
+    private static class BenchmarkHost implements PullEngine.Host {
+        PullEngine engine;
+        int offset;
+        int state;
+        float fraction;
+
+        @Override
+        public void scrollToOffset(int offset) {
+            this.offset = offset;
+        }
+
+        @Override
+        public void smoothScrollBy(int dy) {
+            engine.offsetTo(offset + dy);
+        }
+
+        @Override
+        public boolean canChildScrollUp() {
+            return false;
+        }
+
+        @Override
+        public boolean canChildScrollDown() {
+            return false;
+        }
+
+        @Override
+        public void onPullDownStateChanged(int state, float fraction) {
+            this.state = state;
+            this.fraction = fraction;
+        }
+
+        @Override
+        public void onPullUpStateChanged(int state, float fraction) {
+            this.state = state;
+            this.fraction = fraction;
+        }
+
+        @Override
+        public void onPullDownProgress(float fraction) {
+            this.fraction = fraction;
+        }
+
+        @Override
+        public void onPullUpProgress(float fraction) {
+            this.fraction = fraction;
+        }
+
+        @Override
+        public void bounce(int peakOffset) {
+            engine.offsetTo(peakOffset);
+            engine.offsetTo(0);
+            engine.endFling();
+        }
+
+        @Override
+        public void onRefresh(int token) {
+        }
+
+        @Override
+        public void onLoadMore(int token) {
+        }
+
+        @Override
+        public void onLoadMoreCancelled(int token) {
+        }
+    }
+}
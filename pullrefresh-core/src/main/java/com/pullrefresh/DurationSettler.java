@@ -0,0 +1,92 @@
+package com.pullrefresh;
+
+/**
+ * 时长随距离变化的减速动画.
+ * <p>时长 = maxDuration * sqrt(距离 / referenceDistance)，并限制在[minDuration, maxDuration]之间，
+ * 收起一个很短的距离不会像固定时长那样拖沓。</p>
+ */
+public class DurationSettler implements Settler {
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final long mMinDurationNanos;
+    private final long mMaxDurationNanos;
+    private final float mReferenceDistance;
+
+    private int mFrom;
+    private int mTo;
+    private int mCurrent;
+    private long mStartTimeNanos;
+    private long mDurationNanos;
+    private boolean mFinished = true;
+
+    /**
+     * @param minDurationMillis 最短时长
+     * @param maxDurationMillis 最长时长，距离达到referenceDistance时使用
+     * @param referenceDistance 使用最长时长的距离，单位px
+     */
+    public DurationSettler(long minDurationMillis, long maxDurationMillis, float referenceDistance) {
+        if (minDurationMillis < 0 || maxDurationMillis < minDurationMillis || referenceDistance <= 0) {
+            throw new IllegalArgumentException("Invalid duration range or reference distance");
+        }
+        mMinDurationNanos = minDurationMillis * NANOS_PER_MILLI;
+        mMaxDurationNanos = maxDurationMillis * NANOS_PER_MILLI;
+        mReferenceDistance = referenceDistance;
+    }
+
+    @Override
+    public void start(int from, int to, long startTimeNanos) {
+        mFrom = from;
+        mTo = to;
+        mCurrent = from;
+        mStartTimeNanos = startTimeNanos;
+        mDurationNanos = durationFor(Math.abs(to - from));
+        mFinished = from == to;
+    }
+
+    /**
+     * 移动distance需要的时长，单位纳秒
+     */
+    public long durationFor(int distance) {
+        float ratio = Math.min(1f, distance / mReferenceDistance);
+        long duration = (long) (mMaxDurationNanos * Math.sqrt(ratio));
+        return Math.max(mMinDurationNanos, duration);
+    }
+
+    @Override
+    public boolean computeOffset(long frameTimeNanos) {
+        if (mFinished) {
+            return false;
+        }
+        long elapsed = frameTimeNanos - mStartTimeNanos;
+        if (elapsed >= mDurationNanos) {
+            mCurrent = mTo;
+            mFinished = true;
+            return false;
+        }
+        float t = elapsed <= 0 ? 0 : (float) elapsed / mDurationNanos;
+        //减速插值 1-(1-t)^2
+        float interpolated = 1 - (1 - t) * (1 - t);
+        mCurrent = mFrom + Math.round((mTo - mFrom) * interpolated);
+        return true;
+    }
+
+    @Override
+    public int getCurrentOffset() {
+        return mCurrent;
+    }
+
+    @Override
+    public int getFinalOffset() {
+        return mTo;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return mFinished;
+    }
+
+    @Override
+    public void abort() {
+        mFinished = true;
+    }
+}
@@ -0,0 +1,436 @@
+package com.pullrefresh;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 录制下来的一串拉动事件：触摸事件和嵌套滑动的回调，可以保存成紧凑的二进制文件再读回来回放.
+ * <p>触摸事件保存所有手指的id和x、y坐标，以及批量送来的历史采样点，和MotionEvent一样，
+ * 最后一个采样点是事件本身的位置。</p>
+ * <p>内存里用几个基本类型的数组保存，录制时不为每个事件分配对象：事件的参数各占一个数组，
+ * 手指的id、采样点的时间和坐标放在共用的数组里，每个事件记下自己的起始位置。</p>
+ * <p>文件格式：魔数、版本、事件数，之后每个事件是类型(1字节)、和上一个事件的时间差(变长整数)，
+ * 嵌套滑动接着是两个参数(变长整数)；触摸事件接着是action、手指数、每个手指的id、历史采样点数(变长整数)，
+ * 每个采样点是比事件早多少毫秒(变长整数，最后一个省略)和每个手指的x、y(4字节float)。
+ * 版本1的文件只有一个手指的y坐标，读回来时x是0。</p>
+ */
+public final class GestureTrace {
+    /**触摸事件，参数是action(包括手指的index)和手指数*/
+    public static final int TOUCH = 0;
+    /**onNestedScrollAccepted()*/
+    public static final int NESTED_ACCEPT = 1;
+    /**onNestedPreScroll()，参数是dy*/
+    public static final int NESTED_PRE_SCROLL = 2;
+    /**onNestedScroll()，参数是dyConsumed和dyUnconsumed*/
+    public static final int NESTED_SCROLL = 3;
+    /**onNestedFling()，参数是速度(px/s取整)和子View是否消费了*/
+    public static final int NESTED_FLING = 4;
+    /**onStopNestedScroll()*/
+    public static final int NESTED_STOP = 5;
+
+    private static final int MAGIC = 0x50525452;
+    private static final int VERSION_SINGLE_POINTER = 1;
+    private static final int VERSION = 2;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private byte[] mKinds = new byte[INITIAL_CAPACITY];
+    private long[] mTimes = new long[INITIAL_CAPACITY];
+    private int[] mArg0 = new int[INITIAL_CAPACITY];
+    private int[] mArg1 = new int[INITIAL_CAPACITY];
+    //每个事件在共用数组里的起始位置
+    private int[] mFirstPointer = new int[INITIAL_CAPACITY];
+    private int[] mFirstSample = new int[INITIAL_CAPACITY];
+    private int[] mFirstPosition = new int[INITIAL_CAPACITY];
+    private int mSize;
+
+    private int[] mPointerIds = new int[INITIAL_CAPACITY];
+    private int mPointerSize;
+    private long[] mSampleTimes = new long[INITIAL_CAPACITY];
+    private int mSampleSize;
+    //采样点的坐标，每个采样点按手指的顺序各一个
+    private float[] mXs = new float[INITIAL_CAPACITY];
+    private float[] mYs = new float[INITIAL_CAPACITY];
+    private int mPositionSize;
+    //正在添加的触摸事件，-1表示没有
+    private int mOpenTouch = -1;
+
+    public int size() {
+        return mSize;
+    }
+
+    public void clear() {
+        mSize = 0;
+        mPointerSize = 0;
+        mSampleSize = 0;
+        mPositionSize = 0;
+        mOpenTouch = -1;
+    }
+
+    /**
+     * 单指、没有历史采样点的触摸事件
+     * @param timeMillis 事件时间，只保存和上一个事件的差
+     */
+    public void addTouch(long timeMillis, int action, int pointerId, float x, float y) {
+        beginTouch(timeMillis, action);
+        addPointer(pointerId);
+        addSample(timeMillis);
+        addPosition(x, y);
+        endTouch();
+    }
+
+    /**
+     * 开始添加一个触摸事件，之后依次调用{@link #addPointer(int)}添加所有手指，
+     * 再按时间顺序对每个采样点调用{@link #addSample(long)}和每个手指的{@link #addPosition(float, float)}，
+     * 最后调用{@link #endTouch()}
+     * @param action MotionEvent.getAction()，包括手指的index
+     */
+    public void beginTouch(long timeMillis, int action) {
+        if (mOpenTouch >= 0) {
+            throw new IllegalStateException("Touch event not ended");
+        }
+        mOpenTouch = mSize;
+        add(TOUCH, timeMillis, action, 0);
+    }
+
+    public void addPointer(int pointerId) {
+        checkOpenTouch();
+        if (mSampleSize != mFirstSample[mOpenTouch]) {
+            throw new IllegalStateException("Pointers must be added before samples");
+        }
+        if (mPointerSize == mPointerIds.length) {
+            mPointerIds = grow(mPointerIds, mPointerSize);
+        }
+        mPointerIds[mPointerSize++] = pointerId;
+        mArg1[mOpenTouch]++;
+    }
+
+    /**
+     * 添加一个采样点，历史采样点在前，事件本身的位置最后
+     */
+    public void addSample(long timeMillis) {
+        checkOpenTouch();
+        if (mArg1[mOpenTouch] == 0) {
+            throw new IllegalStateException("No pointers");
+        }
+        if (mSampleSize == mSampleTimes.length) {
+            mSampleTimes = grow(mSampleTimes, mSampleSize);
+        }
+        mSampleTimes[mSampleSize++] = timeMillis;
+    }
+
+    /**
+     * 最近一个采样点里下一个手指的位置
+     */
+    public void addPosition(float x, float y) {
+        checkOpenTouch();
+        if (mSampleSize == mFirstSample[mOpenTouch]) {
+            throw new IllegalStateException("No sample");
+        }
+        if (mPositionSize == mXs.length) {
+            mXs = grow(mXs, mPositionSize);
+            mYs = grow(mYs, mPositionSize);
+        }
+        mXs[mPositionSize] = x;
+        mYs[mPositionSize] = y;
+        mPositionSize++;
+    }
+
+    public void endTouch() {
+        checkOpenTouch();
+        final int index = mOpenTouch;
+        final int samples = mSampleSize - mFirstSample[index];
+        if (samples == 0 || mPositionSize - mFirstPosition[index] != samples * mArg1[index]) {
+            throw new IllegalStateException("Every sample needs one position per pointer");
+        }
+        if (mSampleTimes[mSampleSize - 1] != mTimes[index]) {
+            throw new IllegalStateException("The last sample must be at the event time");
+        }
+        mOpenTouch = -1;
+    }
+
+    /**
+     * @param kind 嵌套滑动的回调类型，参数含义见各个常量
+     */
+    public void addNested(long timeMillis, int kind, int arg0, int arg1) {
+        if (kind <= TOUCH || kind > NESTED_STOP) {
+            throw new IllegalArgumentException("Unknown nested event: " + kind);
+        }
+        if (mOpenTouch >= 0) {
+            throw new IllegalStateException("Touch event not ended");
+        }
+        add(kind, timeMillis, arg0, arg1);
+    }
+
+    public int getKind(int index) {
+        checkIndex(index);
+        return mKinds[index];
+    }
+
+    public long getTime(int index) {
+        checkIndex(index);
+        return mTimes[index];
+    }
+
+    /**
+     * @return 触摸事件的action，或者嵌套滑动的第一个参数
+     */
+    public int getArg0(int index) {
+        checkIndex(index);
+        return mArg0[index];
+    }
+
+    /**
+     * @return 触摸事件的手指数，或者嵌套滑动的第二个参数
+     */
+    public int getArg1(int index) {
+        checkIndex(index);
+        return mArg1[index];
+    }
+
+    /**
+     * @return 触摸事件的手指数，嵌套滑动是0
+     */
+    public int getPointerCount(int index) {
+        checkIndex(index);
+        return mKinds[index] == TOUCH ? mArg1[index] : 0;
+    }
+
+    public int getPointerId(int index, int pointer) {
+        checkPointer(index, pointer);
+        return mPointerIds[mFirstPointer[index] + pointer];
+    }
+
+    /**
+     * @return 触摸事件的历史采样点数，和MotionEvent.getHistorySize()一样
+     */
+    public int getHistorySize(int index) {
+        checkIndex(index);
+        if (mKinds[index] != TOUCH) {
+            return 0;
+        }
+        final int end = index + 1 < mSize ? mFirstSample[index + 1] : mSampleSize;
+        return end - mFirstSample[index] - 1;
+    }
+
+    /**
+     * @param sample 0到{@link #getHistorySize(int)}，最后一个是事件本身
+     */
+    public long getSampleTime(int index, int sample) {
+        checkSample(index, sample);
+        return mSampleTimes[mFirstSample[index] + sample];
+    }
+
+    public float getX(int index, int sample, int pointer) {
+        return mXs[positionIndex(index, sample, pointer)];
+    }
+
+    public float getY(int index, int sample, int pointer) {
+        return mYs[positionIndex(index, sample, pointer)];
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        if (mOpenTouch >= 0) {
+            throw new IllegalStateException("Touch event not ended");
+        }
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        writeVarInt(data, mSize);
+        long lastTime = 0;
+        for (int i = 0; i < mSize; i++) {
+            final int kind = mKinds[i];
+            data.writeByte(kind);
+            writeVarLong(data, mTimes[i] - lastTime);
+            lastTime = mTimes[i];
+            writeVarInt(data, zigZag(mArg0[i]));
+            writeVarInt(data, zigZag(mArg1[i]));
+            if (kind != TOUCH) {
+                continue;
+            }
+            final int pointers = mArg1[i];
+            for (int p = 0; p < pointers; p++) {
+                writeVarInt(data, mPointerIds[mFirstPointer[i] + p]);
+            }
+            final int history = getHistorySize(i);
+            writeVarInt(data, history);
+            int position = mFirstPosition[i];
+            for (int h = 0; h <= history; h++) {
+                if (h < history) {
+                    writeVarLong(data, mTimes[i] - mSampleTimes[mFirstSample[i] + h]);
+                }
+                for (int p = 0; p < pointers; p++, position++) {
+                    data.writeFloat(mXs[position]);
+                    data.writeFloat(mYs[position]);
+                }
+            }
+        }
+        data.flush();
+    }
+
+    public static GestureTrace readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a gesture trace");
+        }
+        final int version = data.readUnsignedByte();
+        if (version != VERSION && version != VERSION_SINGLE_POINTER) {
+            throw new IOException("Unsupported trace version: " + version);
+        }
+        final int size = readVarInt(data);
+        GestureTrace trace = new GestureTrace();
+        long time = 0;
+        for (int i = 0; i < size; i++) {
+            final int kind = data.readUnsignedByte();
+            if (kind > NESTED_STOP) {
+                throw new IOException("Unknown event: " + kind);
+            }
+            time += readVarLong(data);
+            final int arg0 = unZigZag(readVarInt(data));
+            final int arg1 = unZigZag(readVarInt(data));
+            if (kind != TOUCH) {
+                trace.addNested(time, kind, arg0, arg1);
+            } else if (version == VERSION_SINGLE_POINTER) {
+                //arg1是手指的id
+                trace.addTouch(time, arg0, arg1, 0, data.readFloat());
+            } else {
+                readTouch(data, trace, time, arg0, arg1);
+            }
+        }
+        return trace;
+    }
+
+    private static void readTouch(DataInputStream data, GestureTrace trace, long time,
+                                  int action, int pointers) throws IOException {
+        if (pointers <= 0) {
+            throw new IOException("Touch event without pointers");
+        }
+        trace.beginTouch(time, action);
+        for (int p = 0; p < pointers; p++) {
+            trace.addPointer(readVarInt(data));
+        }
+        final int history = readVarInt(data);
+        for (int h = 0; h <= history; h++) {
+            trace.addSample(h < history ? time - readVarLong(data) : time);
+            for (int p = 0; p < pointers; p++) {
+                trace.addPosition(data.readFloat(), data.readFloat());
+            }
+        }
+        trace.endTouch();
+    }
+
+    private void add(int kind, long timeMillis, int arg0, int arg1) {
+        if (mSize == mKinds.length) {
+            grow();
+        }
+        mKinds[mSize] = (byte) kind;
+        mTimes[mSize] = timeMillis;
+        mArg0[mSize] = arg0;
+        mArg1[mSize] = arg1;
+        mFirstPointer[mSize] = mPointerSize;
+        mFirstSample[mSize] = mSampleSize;
+        mFirstPosition[mSize] = mPositionSize;
+        mSize++;
+    }
+
+    private void grow() {
+        final int capacity = mKinds.length * 2;
+        byte[] kinds = new byte[capacity];
+        long[] times = new long[capacity];
+        System.arraycopy(mKinds, 0, kinds, 0, mSize);
+        System.arraycopy(mTimes, 0, times, 0, mSize);
+        mKinds = kinds;
+        mTimes = times;
+        mArg0 = grow(mArg0, mSize);
+        mArg1 = grow(mArg1, mSize);
+        mFirstPointer = grow(mFirstPointer, mSize);
+        mFirstSample = grow(mFirstSample, mSize);
+        mFirstPosition = grow(mFirstPosition, mSize);
+    }
+
+    private static int[] grow(int[] array, int size) {
+        int[] grown = new int[array.length * 2];
+        System.arraycopy(array, 0, grown, 0, size);
+        return grown;
+    }
+
+    private static long[] grow(long[] array, int size) {
+        long[] grown = new long[array.length * 2];
+        System.arraycopy(array, 0, grown, 0, size);
+        return grown;
+    }
+
+    private static float[] grow(float[] array, int size) {
+        float[] grown = new float[array.length * 2];
+        System.arraycopy(array, 0, grown, 0, size);
+        return grown;
+    }
+
+    private int positionIndex(int index, int sample, int pointer) {
+        checkSample(index, sample);
+        checkPointer(index, pointer);
+        return mFirstPosition[index] + sample * mArg1[index] + pointer;
+    }
+
+    private void checkOpenTouch() {
+        if (mOpenTouch < 0) {
+            throw new IllegalStateException("No touch event begun");
+        }
+    }
+
+    private void checkPointer(int index, int pointer) {
+        if (pointer < 0 || pointer >= getPointerCount(index)) {
+            throw new IndexOutOfBoundsException("Pointer: " + pointer + ", count: " + getPointerCount(index));
+        }
+    }
+
+    private void checkSample(int index, int sample) {
+        if (sample < 0 || sample > getHistorySize(index) || mKinds[index] != TOUCH) {
+            throw new IndexOutOfBoundsException("Sample: " + sample + ", history: " + getHistorySize(index));
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + mSize);
+        }
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        return (int) readVarLong(in);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
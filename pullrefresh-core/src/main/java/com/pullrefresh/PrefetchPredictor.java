@@ -0,0 +1,107 @@
+package com.pullrefresh;
+
+/**
+ * 根据内容的滚动速度和最近几次加载更多的耗时，估算需要提前多少像素开始加载.
+ * <p>提前量 = 速度 × 加载耗时 × 余量，滚得越快、加载越慢就越早开始，
+ * 这样数据回来时用户还没有滚动到底，看不到加载中的Footer。</p>
+ */
+final class PrefetchPredictor {
+    private static final float NANOS_PER_SECOND = 1e9f;
+    /**
+     * 速度平滑的时间常数，按时间加权，帧率不同结果也一样
+     */
+    private static final float VELOCITY_TIME_CONSTANT_SECONDS = 0.05f;
+    /**
+     * 两次滚动间隔超过这个时间就认为是新的一次滚动，之前的速度作废
+     */
+    private static final long STALE_NANOS = 100000000L;
+    /**
+     * 还没有测到加载耗时的时候，先按这个估算
+     */
+    private static final long DEFAULT_LATENCY_NANOS = 300000000L;
+    //新测到的耗时占的权重
+    private static final float LATENCY_WEIGHT = 0.5f;
+    //估算的余量，加载耗时有波动
+    private static final float HEADROOM = 1.25f;
+
+    private float mVelocity;
+    private int mLastPixelsBelow = -1;
+    private long mLastScrollNanos;
+    private float mLatencyNanos = DEFAULT_LATENCY_NANOS;
+    private long mLoadStartNanos = -1;
+    private int mMaxDistance = Integer.MAX_VALUE;
+
+    /**
+     * 记录一次滚动，用剩余像素的变化计算速度
+     * @param pixelsBelow 可见区域下面还有多少像素，不知道时传-1
+     */
+    void onScrolled(int pixelsBelow, long timeNanos) {
+        if (pixelsBelow < 0) {
+            mLastPixelsBelow = -1;
+            mVelocity = 0;
+            return;
+        }
+        final long dt = timeNanos - mLastScrollNanos;
+        if (mLastPixelsBelow < 0 || dt > STALE_NANOS) {
+            mVelocity = 0;
+        } else if (dt > 0) {
+            final float seconds = dt / NANOS_PER_SECOND;
+            final float sample = (mLastPixelsBelow - pixelsBelow) / seconds;
+            final float alpha = seconds / (seconds + VELOCITY_TIME_CONSTANT_SECONDS);
+            mVelocity += (sample - mVelocity) * alpha;
+        } else {
+            //同一帧里的重复回调
+            return;
+        }
+        mLastPixelsBelow = pixelsBelow;
+        mLastScrollNanos = timeNanos;
+    }
+
+    void onLoadStarted(long timeNanos) {
+        mLoadStartNanos = timeNanos;
+    }
+
+    /**
+     * 加载失败或者被取消，这次的耗时不统计
+     */
+    void onLoadAborted() {
+        mLoadStartNanos = -1;
+    }
+
+    void onLoadFinished(long timeNanos) {
+        if (mLoadStartNanos < 0 || timeNanos < mLoadStartNanos) {
+            return;
+        }
+        mLatencyNanos += (timeNanos - mLoadStartNanos - mLatencyNanos) * LATENCY_WEIGHT;
+        mLoadStartNanos = -1;
+    }
+
+    /**
+     * 提前量的上限，比如几屏的高度
+     */
+    void setMaxDistance(int maxDistance) {
+        mMaxDistance = maxDistance;
+    }
+
+    /**
+     * @return 朝底部滚动的速度，单位px/s，往回滚是负数
+     */
+    float getVelocity() {
+        return mVelocity;
+    }
+
+    long getLatencyNanos() {
+        return (long) mLatencyNanos;
+    }
+
+    /**
+     * @return 按当前速度需要提前的像素距离，往回滚或者停下时是0
+     */
+    int getPrefetchDistance() {
+        if (mVelocity <= 0) {
+            return 0;
+        }
+        final float distance = mVelocity * (mLatencyNanos / NANOS_PER_SECOND) * HEADROOM;
+        return (int) Math.min(distance, mMaxDistance);
+    }
+}
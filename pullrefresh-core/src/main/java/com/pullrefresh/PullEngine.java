@@ -0,0 +1,892 @@
+package com.pullrefresh;
+
+/**
+ * 拖动和状态的计算引擎，不依赖android.*，可以直接在JVM上运行和测试.
+ * <p>PullToRefreshLayout把触摸事件和嵌套滑动的距离交给它，它负责计算偏移量、
+ * 下拉/上拉的状态以及何时触发刷新和加载，再通过{@link Host}回调给具体的View去滚动和显示。</p>
+ *
+ * 偏移量的方向和View#getScrollY()一致：小于0表示处于下拉状态，大于0表示处于上拉状态。
+ */
+public class PullEngine {
+    /**
+     * 拖动的阻力系数，手指移动的距离乘以它才是内容移动的距离
+     */
+    public static final float DRAG_RATE = 0.5f;
+
+    /**
+     * 引擎的宿主，负责真正的滚动和界面显示.
+     */
+    public interface Host {
+        /**
+         * 把内容移动到指定的偏移量
+         */
+        void scrollToOffset(int offset);
+
+        /**
+         * 从当前偏移量平滑滚动dy的距离，滚动过程中宿主需要通过{@link PullEngine#offsetTo(int)}同步偏移量
+         */
+        void smoothScrollBy(int dy);
+
+        /**
+         * 内容是否还能向上滚动，即还没有到达顶部
+         */
+        boolean canChildScrollUp();
+
+        /**
+         * 内容是否还能向下滚动，即还没有到达底部
+         */
+        boolean canChildScrollDown();
+
+        /**
+         * 下拉的状态改变
+         * @param state {@link PullState}
+         * @param fraction 下拉距离占触发距离的比例，0-1之间
+         */
+        void onPullDownStateChanged(int state, float fraction);
+
+        /**
+         * 上拉的状态改变
+         * @param state {@link PullState}
+         * @param fraction 上拉距离占触发距离的比例，0-1之间
+         */
+        void onPullUpStateChanged(int state, float fraction);
+
+        /**
+         * 下拉的进度改变，只在状态边沿触发模式下回调
+         * @param fraction 下拉距离占触发距离的比例，0-1之间
+         */
+        void onPullDownProgress(float fraction);
+
+        /**
+         * 上拉的进度改变，只在状态边沿触发模式下回调
+         * @param fraction 上拉距离占触发距离的比例，0-1之间
+         */
+        void onPullUpProgress(float fraction);
+
+        /**
+         * 惯性滑动到头后的回弹：从当前偏移量移动到peakOffset再回到0，
+         * 回到0以后宿主需要调用{@link PullEngine#endFling()}
+         */
+        void bounce(int peakOffset);
+
+        /**
+         * 开始刷新
+         * @param token 这次刷新的请求号，完成时用来识别过期的结果
+         */
+        void onRefresh(int token);
+
+        /**
+         * 开始加载更多
+         * @param token 这次加载的请求号，完成时用来识别过期的结果
+         */
+        void onLoadMore(int token);
+
+        /**
+         * 正在进行的加载更多被取消了，比如开始了下拉刷新，之后这个请求号的结果都会被丢掉
+         */
+        void onLoadMoreCancelled(int token);
+    }
+
+    private final Host mHost;
+    private int mOffset;
+    private int mState;
+    private int mHeaderHeight;
+    private int mFooterHeight;
+    private int mRefreshTriggerOffset;
+    private int mLoadMoreTriggerOffset;
+    private boolean mRefreshing;
+    private boolean mLoading;
+    //最近分配的请求号，每次开始刷新或加载更多加1
+    private int mLastToken;
+    //正在进行的刷新和加载更多的请求号，0表示没有或者已经完成。
+    //只在主线程修改，isTokenActive()可以在其他线程读
+    private volatile int mRefreshToken;
+    private volatile int mLoadToken;
+    private boolean isPullRefreshEnabled = true;
+    private boolean isPullLoadEnabled = true;
+    private boolean mHasHeader;
+    private boolean mHasFooter;
+    /**
+     * 状态只在切换时分发，连续的拉动进度单独回调
+     */
+    private boolean mEdgeTriggered;
+    //最近一次分发出去的状态
+    private int mPullDownState = PullState.RESET;
+    private int mPullUpState = PullState.RESET;
+    /**
+     * 惯性滑动到底时直接开始加载更多
+     */
+    private boolean mFlingLoadMoreEnabled;
+    /**
+     * 吸收惯性时的减速度，单位px/s²，越小回弹越远
+     */
+    private float mFlingDeceleration;
+    /**
+     * 滚动到接近底部时自动加载
+     */
+    private boolean isScrollLoadEnabled;
+    //离底部还剩多少个item或多少像素时开始加载
+    private int mPrefetchItemCount = 3;
+    private int mPrefetchDistance;
+    /**
+     * 提前量按滚动速度和加载耗时自动放大
+     */
+    private boolean mAdaptivePrefetch;
+    private final PrefetchPredictor mPrefetchPredictor = new PrefetchPredictor();
+    //正在回弹的一侧，-1头部，1底部，0没有
+    private int mBounceSide;
+    //橡皮筋拉到头时阻力是0，收回时至少按这个比例移动，不会卡住
+    private static final float MIN_RETRACT_RATE = 0.05f;
+    //嵌套滑动中拉出头部或底部用掉的手指距离，收回到0时清零
+    private float mTotalUnconsumed;
+    private float mTotalLoadUnconsumed;
+    /**
+     * 拖动时不足1像素的部分，留到下一次移动，慢慢拉时不会因为取整丢掉距离
+     */
+    private float mDragRemainder;
+    //累加了还没应用的拖动距离，见accumulateDrag()
+    private float mPendingDrag;
+    private ResistanceCurve mResistance = ResistanceCurve.linear(DRAG_RATE);
+
+    public PullEngine(Host host) {
+        mHost = host;
+    }
+
+    public int getOffset() {
+        return mOffset;
+    }
+
+    /**
+     * 同步宿主的偏移量，比如平滑滚动的每一步
+     */
+    public void offsetTo(int offset) {
+        mDragRemainder = 0;
+        mPendingDrag = 0;
+        applyOffset(offset);
+        dispatchProgress();
+    }
+
+    private void applyOffset(int offset) {
+        mOffset = offset;
+        mHost.scrollToOffset(offset);
+    }
+
+    public int getState() {
+        return mState;
+    }
+
+    /**
+     * @return 最近一次分发给头部的状态
+     */
+    public int getPullDownState() {
+        return mPullDownState;
+    }
+
+    /**
+     * @return 最近一次分发给底部的状态
+     */
+    public int getPullUpState() {
+        return mPullUpState;
+    }
+
+    public boolean isRefreshing() {
+        return mRefreshing;
+    }
+
+    public boolean isLoading() {
+        return mLoading;
+    }
+
+    /**
+     * @return 正在进行的刷新的请求号，没有时返回0
+     */
+    public int getRefreshToken() {
+        return mRefreshToken;
+    }
+
+    /**
+     * @return 正在进行的加载更多的请求号，没有时返回0
+     */
+    public int getLoadMoreToken() {
+        return mLoadToken;
+    }
+
+    /**
+     * @return 请求还在进行中，没有完成、取消或者被新的请求替代
+     */
+    public boolean isTokenActive(int token) {
+        return token != 0 && (token == mRefreshToken || token == mLoadToken);
+    }
+
+    public void setPullRefreshEnabled(boolean pullRefreshEnabled) {
+        isPullRefreshEnabled = pullRefreshEnabled;
+    }
+
+    public void setPullLoadEnabled(boolean pullLoadEnabled) {
+        isPullLoadEnabled = pullLoadEnabled;
+    }
+
+    public boolean isPullRefreshEnabled() {
+        return isPullRefreshEnabled;
+    }
+
+    public boolean isPullLoadEnabled() {
+        return isPullLoadEnabled;
+    }
+
+    public void setScrollLoadEnabled(boolean scrollLoadEnabled) {
+        isScrollLoadEnabled = scrollLoadEnabled;
+    }
+
+    public boolean isScrollLoadEnabled() {
+        return isScrollLoadEnabled;
+    }
+
+    /**
+     * 设置自动加载的提前量，满足任意一个就开始加载
+     * @param itemCount 内容下面还剩多少个item，默认3
+     * @param distance 内容下面还剩多少像素，默认0，即滚动到底
+     */
+    public void setPrefetchThreshold(int itemCount, int distance) {
+        if (itemCount < 0 || distance < 0) {
+            throw new IllegalArgumentException("Prefetch threshold must not be negative");
+        }
+        mPrefetchItemCount = itemCount;
+        mPrefetchDistance = distance;
+    }
+
+    public int getPrefetchItemCount() {
+        return mPrefetchItemCount;
+    }
+
+    public int getPrefetchDistance() {
+        return mPrefetchDistance;
+    }
+
+    /**
+     * 设置自适应的提前量：快速滑动时按速度 × 最近几次加载更多的耗时提前开始加载，
+     * 慢慢浏览时还是用{@link #setPrefetchThreshold(int, int)}设置的阈值。
+     * 加载耗时从开始加载算到{@link #onLoadMoreComplete(long)}，失败或取消的加载不统计。
+     */
+    public void setAdaptivePrefetchEnabled(boolean adaptivePrefetch) {
+        mAdaptivePrefetch = adaptivePrefetch;
+    }
+
+    public boolean isAdaptivePrefetchEnabled() {
+        return mAdaptivePrefetch;
+    }
+
+    /**
+     * 自适应提前量的上限，默认不限
+     */
+    public void setMaxPrefetchDistance(int maxDistance) {
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("Max prefetch distance must not be negative");
+        }
+        mPrefetchPredictor.setMaxDistance(maxDistance);
+    }
+
+    /**
+     * @return 当前生效的像素提前量
+     */
+    public int getEffectivePrefetchDistance() {
+        if (!mAdaptivePrefetch) {
+            return mPrefetchDistance;
+        }
+        return Math.max(mPrefetchDistance, mPrefetchPredictor.getPrefetchDistance());
+    }
+
+    /**
+     * 设置状态边沿触发模式：拉动过程中状态回调只在真正切换时调用一次，
+     * 进度通过{@link Host#onPullDownProgress(float)}和{@link Host#onPullUpProgress(float)}连续回调。
+     * 默认关闭，每次移动都会重新分发PULL_TO_REFRESH和RELEASE_TO_REFRESH。
+     */
+    public void setEdgeTriggered(boolean edgeTriggered) {
+        mEdgeTriggered = edgeTriggered;
+    }
+
+    public boolean isEdgeTriggered() {
+        return mEdgeTriggered;
+    }
+
+    public void setFlingLoadMoreEnabled(boolean flingLoadMoreEnabled) {
+        mFlingLoadMoreEnabled = flingLoadMoreEnabled;
+    }
+
+    public boolean isFlingLoadMoreEnabled() {
+        return mFlingLoadMoreEnabled;
+    }
+
+    /**
+     * 设置吸收惯性时的减速度，0表示不吸收惯性
+     * @param deceleration 单位px/s²
+     */
+    public void setFlingDeceleration(float deceleration) {
+        mFlingDeceleration = deceleration;
+    }
+
+    /**
+     * 设置是否有头部，没有头部时不分发下拉状态
+     */
+    public void setHasHeader(boolean hasHeader) {
+        mHasHeader = hasHeader;
+    }
+
+    /**
+     * 设置是否有底部，没有底部时不分发上拉状态
+     */
+    public void setHasFooter(boolean hasFooter) {
+        mHasFooter = hasFooter;
+    }
+
+    /**
+     * 头部测量后的高度，触发刷新的距离至少是头部的高度
+     */
+    public void setHeaderHeight(int headerHeight) {
+        mHeaderHeight = headerHeight;
+        if (mRefreshTriggerOffset < headerHeight) {
+            mRefreshTriggerOffset = headerHeight;
+        }
+    }
+
+    /**
+     * 底部测量后的高度，触发加载的距离至少是底部的高度
+     */
+    public void setFooterHeight(int footerHeight) {
+        mFooterHeight = footerHeight;
+        if (mLoadMoreTriggerOffset < footerHeight) {
+            mLoadMoreTriggerOffset = footerHeight;
+        }
+    }
+
+    public int getHeaderHeight() {
+        return mHeaderHeight;
+    }
+
+    public int getFooterHeight() {
+        return mFooterHeight;
+    }
+
+    public int getRefreshTriggerOffset() {
+        return mRefreshTriggerOffset;
+    }
+
+    public int getLoadMoreTriggerOffset() {
+        return mLoadMoreTriggerOffset;
+    }
+
+    /**
+     * 设置拉动的阻力曲线，默认是比例为{@link #DRAG_RATE}的线性曲线
+     */
+    public void setResistanceCurve(ResistanceCurve curve) {
+        if (curve == null) {
+            throw new IllegalArgumentException("Resistance curve must not be null");
+        }
+        mResistance = curve;
+    }
+
+    public ResistanceCurve getResistanceCurve() {
+        return mResistance;
+    }
+
+    /**
+     * 当前拉出的距离上，手指移动1像素头部或底部移动多少
+     */
+    private float dragRate() {
+        return mResistance.rate(Math.abs(mOffset));
+    }
+
+    /**
+     * 这个方向的拖动是否可用
+     * @param deltaY 手指移动的距离，大于0向下滑动
+     */
+    public boolean canDrag(float deltaY) {
+        return !((deltaY > 0 && !isPullRefreshEnabled)
+                || (deltaY < 0 && !isPullLoadEnabled));
+    }
+
+    /**
+     * 手指拖动了deltaY的距离
+     * @param deltaY 大于0向下滑动
+     */
+    public void dragBy(float deltaY) {
+        accumulateDrag(deltaY);
+        flushDrag();
+    }
+
+    /**
+     * 累加一次拖动，只计算距离，不移动内容也不分发状态，之后调用{@link #flushDrag()}一次应用.
+     * 每一次累加都按累加后的位置查阻力曲线，和逐个调用{@link #dragBy(float)}的结果一样。
+     * @param deltaY 手指移动的距离，大于0向下滑动
+     */
+    public void accumulateDrag(float deltaY) {
+        final float rate = mResistance.rate(Math.abs(mOffset + mDragRemainder + mPendingDrag));
+        mPendingDrag -= deltaY * rate;
+    }
+
+    /**
+     * 应用累加的拖动
+     * @return 有没有累加的距离
+     */
+    public boolean flushDrag() {
+        if (mPendingDrag == 0) {
+            return false;
+        }
+        final float pending = mPendingDrag;
+        mPendingDrag = 0;
+        moveDrag(pending);
+        return true;
+    }
+
+    /**
+     * 移动内容并更新状态
+     * @param overScroll 内容移动的距离，方向和scrollBy一致
+     */
+    public void moveDrag(float overScroll) {
+        final float exact = overScroll + mDragRemainder;
+        final int delta = (int) exact;
+        mDragRemainder = exact - delta;
+        if (delta != 0) {
+            applyOffset(mOffset + delta);
+        }
+        //offset < 0 处于下拉状态
+        int offset = mOffset;
+        if (offset < 0) {
+            //下拉状态
+            if (!mRefreshing) {
+                if (Math.abs(offset + overScroll) < mRefreshTriggerOffset) {
+                    setPullDown(PullState.PULL_TO_REFRESH);
+                } else {
+                    setPullDown(PullState.RELEASE_TO_REFRESH);
+                }
+            }
+        } else if (offset > 0) {
+            //上拉状态
+            if (!mLoading) {
+                if (Math.abs(offset + overScroll) < mLoadMoreTriggerOffset) {
+                    setPullUp(PullState.PULL_TO_REFRESH);
+                } else {
+                    setPullUp(PullState.RELEASE_TO_REFRESH);
+                }
+            }
+        }
+        dispatchProgress();
+    }
+
+    /**
+     * 松手，根据拉动的距离决定刷新、加载还是还原
+     */
+    public void finishDrag() {
+        flushDrag();
+        mDragRemainder = 0;
+        int offset = mOffset;
+        if (offset < 0) {
+            if (mRefreshing) {
+                //正在刷新，回到刷新位置，不重复触发
+                mHost.smoothScrollBy(-offset - mHeaderHeight);
+            } else if (Math.abs(offset) >= mRefreshTriggerOffset) {
+                //放开且高于头部，刷新
+                mHost.smoothScrollBy(-offset - mHeaderHeight);
+                setPullDown(PullState.REFRESHING);
+                startRefresh();
+            } else {
+                //放开且拉动距离小于触发值，还原
+                mHost.smoothScrollBy(-offset);
+                setPullDown(PullState.RESET);
+            }
+        } else if (offset > 0) {
+            if (mLoading) {
+                mHost.smoothScrollBy(-offset + mFooterHeight);
+            } else if (Math.abs(offset) >= mLoadMoreTriggerOffset && !mRefreshing) {
+                mHost.smoothScrollBy(-offset + mFooterHeight);
+                setPullUp(PullState.REFRESHING);
+                startLoadMore(System.nanoTime());
+            } else {
+                mHost.smoothScrollBy(-offset);
+                setPullUp(PullState.RESET);
+            }
+        }
+    }
+
+    /**
+     * 开始刷新，正在进行的加载更多会被取消，刷新后的数据会替换掉它
+     */
+    private void startRefresh() {
+        if (mLoading) {
+            cancelLoadMore();
+        }
+        mRefreshing = true;
+        mRefreshToken = nextToken();
+        mHost.onRefresh(mRefreshToken);
+    }
+
+    /**
+     * @param timeNanos 开始的时间，和{@link #onLoadMoreComplete(long)}用同一个时钟，用来统计加载耗时
+     */
+    private void startLoadMore(long timeNanos) {
+        mPrefetchPredictor.onLoadStarted(timeNanos);
+        mLoading = true;
+        mLoadToken = nextToken();
+        mHost.onLoadMore(mLoadToken);
+    }
+
+    private int nextToken() {
+        if (++mLastToken == 0) {
+            mLastToken = 1;
+        }
+        return mLastToken;
+    }
+
+    /**
+     * 取消正在进行的加载更多，收起底部。之后这次加载的结果会被丢掉
+     * @return 是否有加载被取消
+     */
+    public boolean cancelLoadMore() {
+        if (!mLoading) {
+            return false;
+        }
+        final int token = mLoadToken;
+        mLoading = false;
+        mLoadToken = 0;
+        mPrefetchPredictor.onLoadAborted();
+        if (mOffset > 0) {
+            mHost.smoothScrollBy(-mOffset);
+        }
+        setPullUp(PullState.RESET);
+        mHost.onLoadMoreCancelled(token);
+        return true;
+    }
+
+    /**
+     * 下拉刷新完成，显示刷新成功
+     */
+    public void onRefreshComplete() {
+        mRefreshToken = 0;
+        setPullDown(PullState.REFRESH_SUCCESS);
+    }
+
+    /**
+     * 某次刷新完成，过期的请求号直接丢掉
+     * @return 是否是正在进行的刷新
+     */
+    public boolean onRefreshComplete(int token) {
+        if (token == 0 || token != mRefreshToken) {
+            return false;
+        }
+        onRefreshComplete();
+        return true;
+    }
+
+    /**
+     * 某次刷新失败或者超时，显示刷新失败，之后还要调用{@link #resetPullDown()}
+     * @return 是否是正在进行的刷新
+     */
+    public boolean onRefreshFailed(int token) {
+        if (token == 0 || token != mRefreshToken) {
+            return false;
+        }
+        mRefreshToken = 0;
+        setPullDown(PullState.REFRESH_FAIL);
+        return true;
+    }
+
+    /**
+     * 收起头部并复位
+     */
+    public void resetPullDown() {
+        mHost.smoothScrollBy(-mOffset);
+        mRefreshing = false;
+        mRefreshToken = 0;
+        setPullDown(PullState.RESET);
+    }
+
+    /**
+     * 收起底部并复位
+     */
+    public void resetPullUp() {
+        mHost.smoothScrollBy(-mOffset);
+        mLoading = false;
+        mLoadToken = 0;
+        setPullUp(PullState.RESET);
+    }
+
+    /**
+     * 内容惯性滑动到头时，把剩下的速度转成Header或Footer的回弹.
+     * <p>拉出的距离按匀减速计算：v²/(2a)，不超过Header或Footer的高度。
+     * 打开了{@link #setFlingLoadMoreEnabled(boolean)}时，到底直接开始加载更多。</p>
+     * @param velocity 剩下的速度，单位px/s，方向和偏移量一致：小于0朝向头部，大于0朝向底部
+     * @return 是否吸收了这次惯性
+     */
+    public boolean absorbFling(float velocity) {
+        if (mFlingDeceleration <= 0 || mOffset != 0 || mRefreshing || mLoading || mBounceSide != 0) {
+            return false;
+        }
+        if (velocity > 0 && isPullLoadEnabled && mHasFooter) {
+            if (mFlingLoadMoreEnabled) {
+                mHost.smoothScrollBy(mFooterHeight);
+                setPullUp(PullState.REFRESHING);
+                startLoadMore(System.nanoTime());
+                return true;
+            }
+            return bounce(1, flingDistance(velocity, mFooterHeight));
+        } else if (velocity < 0 && isPullRefreshEnabled && mHasHeader) {
+            return bounce(-1, flingDistance(velocity, mHeaderHeight));
+        }
+        return false;
+    }
+
+    private boolean bounce(int side, int distance) {
+        if (distance <= 0) {
+            return false;
+        }
+        mBounceSide = side;
+        if (side < 0) {
+            setPullDown(PullState.PULL_TO_REFRESH);
+        } else {
+            setPullUp(PullState.PULL_TO_REFRESH);
+        }
+        mHost.bounce(side * distance);
+        return true;
+    }
+
+    private int flingDistance(float velocity, int maxDistance) {
+        float distance = velocity * velocity / (2 * mFlingDeceleration);
+        return (int) Math.min(distance, maxDistance);
+    }
+
+    /**
+     * 回弹结束或者被打断
+     */
+    public void endFling() {
+        int side = mBounceSide;
+        mBounceSide = 0;
+        if (mOffset != 0) {
+            //被手指打断，交给之后的拖动处理
+            return;
+        }
+        if (side < 0) {
+            setPullDown(PullState.RESET);
+        } else if (side > 0) {
+            setPullUp(PullState.RESET);
+        }
+    }
+
+    /**
+     * 内容滚动了，离底部足够近时自动开始加载更多，不用等用户拉出Footer
+     * @param itemsBelow 可见区域下面还有多少个item，不知道时传-1
+     * @param pixelsBelow 可见区域下面还有多少像素，不知道时传-1
+     * @param timeNanos 这次滚动的时间，用来计算滚动速度
+     * @return 是否开始了加载
+     */
+    public boolean onContentScrolled(int itemsBelow, int pixelsBelow, long timeNanos) {
+        if (mAdaptivePrefetch) {
+            mPrefetchPredictor.onScrolled(pixelsBelow, timeNanos);
+        }
+        if (!isScrollLoadEnabled || mLoading || mRefreshing) {
+            return false;
+        }
+        boolean nearEnd = (itemsBelow >= 0 && itemsBelow <= mPrefetchItemCount)
+                || (pixelsBelow >= 0 && pixelsBelow <= getEffectivePrefetchDistance());
+        if (!nearEnd) {
+            return false;
+        }
+        //Footer还没显示出来，用户拉到底时看到的是加载中
+        setPullUp(PullState.REFRESHING);
+        startLoadMore(timeNanos);
+        return true;
+    }
+
+    /**
+     * 加载更多的数据回来了，记录这次加载的耗时，之后还要调用{@link #resetPullUp()}
+     */
+    public void onLoadMoreComplete(long timeNanos) {
+        mLoadToken = 0;
+        mPrefetchPredictor.onLoadFinished(timeNanos);
+    }
+
+    /**
+     * 某次加载更多完成，过期或者已取消的请求号直接丢掉
+     * @return 是否是正在进行的加载
+     */
+    public boolean onLoadMoreComplete(int token, long timeNanos) {
+        if (token == 0 || token != mLoadToken) {
+            return false;
+        }
+        onLoadMoreComplete(timeNanos);
+        return true;
+    }
+
+    /**
+     * 某次加载更多失败，显示加载失败，之后还要调用{@link #resetPullUp()}
+     * @return 是否是正在进行的加载
+     */
+    public boolean onLoadMoreFailed(int token) {
+        if (token == 0 || token != mLoadToken) {
+            return false;
+        }
+        mLoadToken = 0;
+        mPrefetchPredictor.onLoadAborted();
+        setPullUp(PullState.REFRESH_FAIL);
+        return true;
+    }
+
+    // 嵌套滑动
+
+    /**
+     * 开始一次嵌套滑动，清空没有消费的距离
+     */
+    public void onNestedScrollAccepted() {
+        mTotalUnconsumed = 0;
+        mTotalLoadUnconsumed = 0;
+        mDragRemainder = 0;
+        mPendingDrag = 0;
+    }
+
+    /**
+     * 子View滑动之前，先由这里消费掉需要收回的头部或底部
+     * @param dy 子View将要滑动的距离
+     * @return 消费掉的距离
+     */
+    public int onNestedPreScroll(int dy) {
+        int consumed = 0;
+        // If we are in the middle of consuming, a scroll, then we want to move the spinner back up
+        // before allowing the list to scroll
+        if (isPullRefreshEnabled && dy > 0 && mTotalUnconsumed > 0 && mOffset < 0) {
+            consumed = retractDrag(dy);
+            if (mOffset >= 0) {
+                mTotalUnconsumed = 0;
+            }
+        } else if (isPullLoadEnabled && dy < 0 && mTotalLoadUnconsumed < 0 && mOffset > 0) {
+            consumed = retractDrag(dy);
+            if (mOffset <= 0) {
+                mTotalLoadUnconsumed = 0;
+            }
+        }
+        if (mRefreshing && dy > 0 && mOffset < 0) {
+            //向上滑，且头部显示
+            if (dy > Math.abs(mOffset)) {
+                consumed = Math.abs(mOffset);
+            } else {
+                consumed = dy;
+            }
+            moveDrag(consumed);
+        } else if (mLoading && dy < 0 && mOffset > 0) {
+            //向下滑，且底部显示
+            if (Math.abs(dy) > mOffset) {
+                consumed = -mOffset;
+            } else {
+                consumed = dy;
+            }
+            moveDrag(consumed);
+        }
+        return consumed;
+    }
+
+    /**
+     * 按当前位置的阻力收回拉出的头部或底部，直到偏移量回到0，最后一步正好停在0.
+     * 阻力曲线不是线性时，拉出和收回同样的手指距离不会正好抵消，所以按偏移量而不是手指距离判断结束
+     * @param dy 子View将要滑动的距离，方向和偏移量相反
+     * @return 消费掉的手指距离
+     */
+    private int retractDrag(int dy) {
+        final float rate = Math.max(dragRate(), MIN_RETRACT_RATE);
+        final float position = mOffset + mDragRemainder;
+        final float move = dy * rate;
+        if (Math.abs(move) < Math.abs(position)) {
+            moveDrag(move);
+            return dy;
+        }
+        final int distance = Math.min(Math.abs(dy), (int) Math.ceil(Math.abs(position) / rate));
+        mDragRemainder = 0;
+        moveDrag(-mOffset);
+        return dy > 0 ? distance : -distance;
+    }
+
+    /**
+     * 子View滑动之后剩下的距离
+     * @param dy 没有被消费的距离，小于0表示向下拉
+     * @return 拉出头部或底部消费掉的距离
+     */
+    public int onNestedScroll(int dy) {
+        if (isPullRefreshEnabled && dy < 0 && !mHost.canChildScrollUp()) {
+            mTotalUnconsumed += Math.abs(dy);
+            moveDrag(dy * dragRate());
+            return dy;
+        } else if (isPullLoadEnabled && dy > 0 && !mHost.canChildScrollDown()) {
+            mTotalLoadUnconsumed += -dy;
+            moveDrag(dy * dragRate());
+            return dy;
+        }
+        return 0;
+    }
+
+    /**
+     * 嵌套滑动结束，如果消费过距离就当作松手处理
+     */
+    public void onStopNestedScroll() {
+        // Finish the spinner for nested scrolling if we ever consumed any
+        // unconsumed nested scroll
+        if (mTotalUnconsumed > 0) {
+            finishDrag();
+            mTotalUnconsumed = 0;
+        } else if (mTotalLoadUnconsumed < 0) {
+            finishDrag();
+            mTotalLoadUnconsumed = 0;
+        }
+    }
+
+    private void setPullUp(int state) {
+        if (!mHasFooter) {
+            return;
+        }
+        mState = state;
+        if (mEdgeTriggered && state == mPullUpState) {
+            return;
+        }
+        mPullUpState = state;
+        float fraction = 0;
+        if (state == PullState.PULL_TO_REFRESH) {
+            fraction = dragFraction(mLoadMoreTriggerOffset);
+        }
+        mHost.onPullUpStateChanged(state, fraction);
+    }
+
+    private void setPullDown(int state) {
+        if (!mHasHeader) {
+            return;
+        }
+        mState = state;
+        if (mEdgeTriggered && state == mPullDownState) {
+            return;
+        }
+        mPullDownState = state;
+        float fraction = 0;
+        if (state == PullState.PULL_TO_REFRESH) {
+            fraction = dragFraction(mRefreshTriggerOffset);
+        }
+        mHost.onPullDownStateChanged(state, fraction);
+    }
+
+    /**
+     * 边沿触发模式下，把当前的拉动进度回调给显示出来的一侧
+     */
+    private void dispatchProgress() {
+        if (!mEdgeTriggered) {
+            return;
+        }
+        if (mHasHeader && mOffset <= 0) {
+            mHost.onPullDownProgress(dragFraction(mRefreshTriggerOffset));
+        }
+        if (mHasFooter && mOffset >= 0) {
+            mHost.onPullUpProgress(dragFraction(mLoadMoreTriggerOffset));
+        }
+    }
+
+    private float dragFraction(int distance) {
+        if (distance <= 0) {
+            return 0;
+        }
+        float originalDragPercent = Math.abs(mOffset) * 1.0f / distance;
+        return Math.min(1f, Math.abs(originalDragPercent));
+    }
+}
@@ -0,0 +1,122 @@
+package com.pullrefresh;
+
+/**
+ * 拉动的阻力曲线：头部或底部已经拉出distance时，手指移动1像素它移动多少像素.
+ * <p>曲线在[0, maxDistance]上预先采样成查找表，拖动时按拉出的距离查表、线性插值，
+ * 不在触摸路径上做指数、对数之类的计算；超出maxDistance时用最后一个值。
+ * 自定义曲线继承它实现{@link #evaluate(float)}。</p>
+ */
+public abstract class ResistanceCurve {
+    /**
+     * 查找表的区间数
+     */
+    private static final int TABLE_INTERVALS = 256;
+
+    private final float mMaxDistance;
+    private final float mStep;
+    //第一次查表时才采样，子类的构造函数执行完之后才能调用evaluate()
+    private float[] mTable;
+
+    /**
+     * @param maxDistance 查找表覆盖的拉出距离，单位像素
+     */
+    protected ResistanceCurve(float maxDistance) {
+        if (maxDistance <= 0) {
+            throw new IllegalArgumentException("Max distance must be positive: " + maxDistance);
+        }
+        mMaxDistance = maxDistance;
+        mStep = maxDistance / TABLE_INTERVALS;
+    }
+
+    /**
+     * 计算曲线，只在建查找表时调用
+     * @param distance 已经拉出的距离，不小于0
+     * @return 这个位置的移动比例，不小于0
+     */
+    protected abstract float evaluate(float distance);
+
+    /**
+     * 查表得到移动比例
+     * @param distance 已经拉出的距离，不小于0
+     */
+    public final float rate(float distance) {
+        float[] table = mTable;
+        if (table == null) {
+            table = buildTable();
+        }
+        if (distance >= mMaxDistance) {
+            return table[TABLE_INTERVALS];
+        }
+        final float position = Math.max(0, distance) / mStep;
+        final int index = (int) position;
+        final float fraction = position - index;
+        return table[index] + (table[index + 1] - table[index]) * fraction;
+    }
+
+    public float getMaxDistance() {
+        return mMaxDistance;
+    }
+
+    private float[] buildTable() {
+        float[] table = new float[TABLE_INTERVALS + 1];
+        for (int i = 0; i <= TABLE_INTERVALS; i++) {
+            table[i] = Math.max(0, evaluate(i * mStep));
+        }
+        mTable = table;
+        return table;
+    }
+
+    /**
+     * 固定比例，和手指线性相关
+     * @param rate 移动比例，{@link PullEngine#DRAG_RATE}是默认值
+     */
+    public static ResistanceCurve linear(final float rate) {
+        checkRate(rate);
+        return new ResistanceCurve(1) {
+            @Override
+            protected float evaluate(float distance) {
+                return rate;
+            }
+        };
+    }
+
+    /**
+     * 橡皮筋：越拉越紧，最多拉出maxDistance.
+     * 手指移动f时拉出 d(1 - 1/(1 + rate·f/d))，比例是 rate·(1 - distance/d)²
+     * @param rate 刚开始拉的移动比例
+     * @param maxDistance 最多能拉出的距离d
+     */
+    public static ResistanceCurve rubberBand(final float rate, final float maxDistance) {
+        checkRate(rate);
+        return new ResistanceCurve(maxDistance) {
+            @Override
+            protected float evaluate(float distance) {
+                final float remaining = 1 - distance / maxDistance;
+                return rate * remaining * remaining;
+            }
+        };
+    }
+
+    /**
+     * 对数：没有上限，但越来越难拉.
+     * 手指移动f时拉出 d·ln(1 + rate·f/d)，比例是 rate·e^(-distance/d)
+     * @param rate 刚开始拉的移动比例
+     * @param scale 比例降到1/e时拉出的距离d
+     */
+    public static ResistanceCurve logarithmic(final float rate, final float scale) {
+        checkRate(rate);
+        //查找表覆盖到比例只剩1%的位置
+        return new ResistanceCurve(scale * (float) Math.log(100)) {
+            @Override
+            protected float evaluate(float distance) {
+                return rate * (float) Math.exp(-distance / scale);
+            }
+        };
+    }
+
+    private static void checkRate(float rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Rate must be positive: " + rate);
+        }
+    }
+}
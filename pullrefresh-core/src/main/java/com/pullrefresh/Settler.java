@@ -0,0 +1,34 @@
+package com.pullrefresh;
+
+/**
+ * 松手后把偏移量平滑移动到目标位置的动画计算，不依赖android.*.
+ * <p>宿主在每一帧(vsync)用这一帧的时间调用{@link #computeOffset(long)}，
+ * 再把{@link #getCurrentOffset()}设置给内容。实现不能在每一帧分配对象。</p>
+ */
+public interface Settler {
+    /**
+     * 开始一次动画，会打断还没结束的动画
+     * @param from 起始偏移量
+     * @param to 目标偏移量
+     * @param startTimeNanos 开始的时间，和computeOffset()的时间同一个时钟
+     */
+    void start(int from, int to, long startTimeNanos);
+
+    /**
+     * 计算这一帧的偏移量
+     * @param frameTimeNanos 这一帧的时间
+     * @return 动画还没结束返回true
+     */
+    boolean computeOffset(long frameTimeNanos);
+
+    int getCurrentOffset();
+
+    int getFinalOffset();
+
+    boolean isFinished();
+
+    /**
+     * 停在当前位置
+     */
+    void abort();
+}
@@ -0,0 +1,107 @@
+package com.pullrefresh;
+
+/**
+ * 弹簧动画，时长由弹簧的刚度和阻尼决定，不需要指定.
+ * <p>每一帧按固定的小步长积分，帧率变化不会影响动画的轨迹。
+ * 阻尼比为1时是临界阻尼，不会越过目标位置。</p>
+ */
+public class SpringSettler implements Settler {
+    /**
+     * 积分的最大步长，单位秒
+     */
+    private static final float MAX_STEP_SECONDS = 0.004f;
+    /**
+     * 一帧最多积分的时间，隔了很久才来的一帧不会一次积分太多步
+     */
+    private static final float MAX_FRAME_SECONDS = 0.1f;
+    private static final float NANOS_PER_SECOND = 1e9f;
+    //离目标小于半个像素且速度很小时结束
+    private static final float POSITION_THRESHOLD = 0.5f;
+    private static final float VELOCITY_THRESHOLD = 10f;
+
+    private final float mStiffness;
+    private final float mDamping;
+
+    private float mPosition;
+    private float mVelocity;
+    private int mTo;
+    private int mCurrent;
+    private long mLastFrameNanos;
+    private boolean mFinished = true;
+
+    /**
+     * @param stiffness 刚度，越大越快
+     * @param dampingRatio 阻尼比，1是临界阻尼，小于1会回弹
+     */
+    public SpringSettler(float stiffness, float dampingRatio) {
+        if (stiffness <= 0 || dampingRatio <= 0) {
+            throw new IllegalArgumentException("Stiffness and damping ratio must be positive");
+        }
+        mStiffness = stiffness;
+        mDamping = 2 * dampingRatio * (float) Math.sqrt(stiffness);
+    }
+
+    @Override
+    public void start(int from, int to, long startTimeNanos) {
+        start(from, to, 0, startTimeNanos);
+    }
+
+    /**
+     * 带初速度开始，比如松手时手指的速度
+     * @param velocity 初速度，单位px/s，方向和偏移量一致
+     */
+    public void start(int from, int to, float velocity, long startTimeNanos) {
+        mPosition = from;
+        mVelocity = velocity;
+        mTo = to;
+        mCurrent = from;
+        mLastFrameNanos = startTimeNanos;
+        mFinished = from == to && velocity == 0;
+    }
+
+    @Override
+    public boolean computeOffset(long frameTimeNanos) {
+        if (mFinished) {
+            return false;
+        }
+        float remaining = Math.min(MAX_FRAME_SECONDS,
+                Math.max(0, (frameTimeNanos - mLastFrameNanos) / NANOS_PER_SECOND));
+        mLastFrameNanos = frameTimeNanos;
+        while (remaining > 0) {
+            float dt = Math.min(MAX_STEP_SECONDS, remaining);
+            remaining -= dt;
+            //半隐式欧拉积分
+            float acceleration = -mStiffness * (mPosition - mTo) - mDamping * mVelocity;
+            mVelocity += acceleration * dt;
+            mPosition += mVelocity * dt;
+        }
+        if (Math.abs(mPosition - mTo) < POSITION_THRESHOLD
+                && Math.abs(mVelocity) < VELOCITY_THRESHOLD) {
+            mPosition = mTo;
+            mVelocity = 0;
+            mFinished = true;
+        }
+        mCurrent = Math.round(mPosition);
+        return !mFinished;
+    }
+
+    @Override
+    public int getCurrentOffset() {
+        return mCurrent;
+    }
+
+    @Override
+    public int getFinalOffset() {
+        return mTo;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return mFinished;
+    }
+
+    @Override
+    public void abort() {
+        mFinished = true;
+    }
+}
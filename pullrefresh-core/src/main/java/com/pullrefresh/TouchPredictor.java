@@ -0,0 +1,102 @@
+package com.pullrefresh;
+
+/**
+ * 根据最近几个触摸采样点，预测手指在下一帧时的位置.
+ * <p>触摸事件到屏幕显示之间有一到两帧的延迟，拉动时Header跟在手指后面。按最近的速度把位置往前推一帧，
+ * 看起来就能跟上手指。只用最近很短时间内的采样点，方向刚改变、采样不够或者停下时不预测。</p>
+ * <p>采样点存在固定大小的环形数组里，不分配对象。时间单位和MotionEvent一样是毫秒。</p>
+ */
+final class TouchPredictor {
+    private static final int MAX_SAMPLES = 4;
+    /**
+     * 只用最近这段时间内的采样点，再早的速度已经过时
+     */
+    private static final long MAX_SAMPLE_AGE_MILLIS = 40;
+    /**
+     * 采样点跨越的时间太短时，速度误差太大
+     */
+    private static final long MIN_SPAN_MILLIS = 4;
+    /**
+     * 最多往前预测的时间，更远的预测误差太大
+     */
+    private static final long MAX_LEAD_MILLIS = 20;
+
+    private final long[] mTimes = new long[MAX_SAMPLES];
+    private final float[] mYs = new float[MAX_SAMPLES];
+    //最新的采样点的位置
+    private int mHead = -1;
+    private int mCount;
+    private float mMaxDistance = Float.MAX_VALUE;
+
+    /**
+     * 记录一个采样点，时间必须递增，同一时间的采样点只保留最后一个
+     */
+    void addSample(long timeMillis, float y) {
+        if (mCount > 0) {
+            final long latest = mTimes[mHead];
+            if (timeMillis == latest) {
+                mYs[mHead] = y;
+                return;
+            }
+            if (timeMillis < latest) {
+                reset();
+            }
+        }
+        mHead = (mHead + 1) % MAX_SAMPLES;
+        mTimes[mHead] = timeMillis;
+        mYs[mHead] = y;
+        if (mCount < MAX_SAMPLES) {
+            mCount++;
+        }
+    }
+
+    void reset() {
+        mHead = -1;
+        mCount = 0;
+    }
+
+    /**
+     * 预测距离的上限
+     */
+    void setMaxDistance(float maxDistance) {
+        mMaxDistance = maxDistance;
+    }
+
+    /**
+     * @param leadMillis 往前预测的时间，一般是一帧
+     * @return 手指在那时相对最新采样点还会移动的距离，不能预测时是0
+     */
+    float predictLead(long leadMillis) {
+        if (mCount < 3 || leadMillis <= 0) {
+            return 0;
+        }
+        final long newestTime = mTimes[mHead];
+        final float newestY = mYs[mHead];
+        //找时间窗口内最早的采样点，至少要有三个点才能判断方向有没有改变
+        int used = 1;
+        int oldest = mHead;
+        while (used < mCount) {
+            final int index = (mHead - used + MAX_SAMPLES) % MAX_SAMPLES;
+            if (newestTime - mTimes[index] > MAX_SAMPLE_AGE_MILLIS) {
+                break;
+            }
+            oldest = index;
+            used++;
+        }
+        if (used < 3) {
+            return 0;
+        }
+        final long span = newestTime - mTimes[oldest];
+        if (span < MIN_SPAN_MILLIS) {
+            return 0;
+        }
+        final float distance = newestY - mYs[oldest];
+        final float lastStep = newestY - mYs[(mHead - 1 + MAX_SAMPLES) % MAX_SAMPLES];
+        //停下或者刚掉头，按平均速度预测会越过手指
+        if (distance == 0 || lastStep == 0 || (distance > 0) != (lastStep > 0)) {
+            return 0;
+        }
+        final float lead = distance / span * Math.min(leadMillis, MAX_LEAD_MILLIS);
+        return Math.max(-mMaxDistance, Math.min(mMaxDistance, lead));
+    }
+}
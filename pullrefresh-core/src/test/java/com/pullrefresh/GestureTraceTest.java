@@ -0,0 +1,112 @@
+package com.pullrefresh;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * 录制的事件保存成二进制再读回来，内容不变.
+ */
+public class GestureTraceTest {
+
+    @Test
+    public void writeThenRead_roundTrips() throws Exception {
+        GestureTrace trace = new GestureTrace();
+        trace.addTouch(1000, 0, 0, 240f, 12.5f);
+        for (int i = 1; i <= 100; i++) {
+            trace.addTouch(1000 + i * 16, 2, 0, 240f, 12.5f + i * 3.25f);
+        }
+        //第二个手指按下，带两个历史采样点的移动
+        trace.beginTouch(2700, 5 | (1 << 8));
+        trace.addPointer(0);
+        trace.addPointer(1);
+        trace.addSample(2700);
+        trace.addPosition(240f, 350f);
+        trace.addPosition(100f, 300f);
+        trace.endTouch();
+        trace.beginTouch(2716, 2);
+        trace.addPointer(0);
+        trace.addPointer(1);
+        for (int h = 0; h < 3; h++) {
+            trace.addSample(2704 + h * 6);
+            trace.addPosition(240f, 352f + h);
+            trace.addPosition(101f, 305f + h * 2);
+        }
+        trace.endTouch();
+        trace.addNested(3000, GestureTrace.NESTED_ACCEPT, 0, 0);
+        trace.addNested(3016, GestureTrace.NESTED_SCROLL, 0, -40);
+        trace.addNested(3032, GestureTrace.NESTED_FLING, -2500, 1);
+        trace.addNested(3048, GestureTrace.NESTED_STOP, 0, 0);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        trace.writeTo(out);
+        GestureTrace read = GestureTrace.readFrom(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(trace.size(), read.size());
+        for (int i = 0; i < trace.size(); i++) {
+            assertEquals(trace.getKind(i), read.getKind(i));
+            assertEquals(trace.getTime(i), read.getTime(i));
+            assertEquals(trace.getArg0(i), read.getArg0(i));
+            assertEquals(trace.getArg1(i), read.getArg1(i));
+            assertEquals(trace.getPointerCount(i), read.getPointerCount(i));
+            assertEquals(trace.getHistorySize(i), read.getHistorySize(i));
+            for (int p = 0; p < trace.getPointerCount(i); p++) {
+                assertEquals(trace.getPointerId(i, p), read.getPointerId(i, p));
+                for (int s = 0; s <= trace.getHistorySize(i); s++) {
+                    assertEquals(trace.getSampleTime(i, s), read.getSampleTime(i, s));
+                    assertEquals(trace.getX(i, s, p), read.getX(i, s, p), 0f);
+                    assertEquals(trace.getY(i, s, p), read.getY(i, s, p), 0f);
+                }
+            }
+        }
+        assertEquals(2, read.getHistorySize(102));
+        assertEquals(101f, read.getX(102, 2, 1), 0f);
+        assertEquals(305f, read.getY(102, 0, 1), 0f);
+        //单指的移动事件大约14字节
+        assertTrue(out.size() < trace.size() * 16);
+    }
+
+    @Test
+    public void readVersion1_singlePointerWithoutX() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(0x50525452);
+        data.writeByte(1);
+        data.writeByte(1);
+        //TOUCH，时间1000，ACTION_MOVE，pointerId 0
+        data.writeByte(GestureTrace.TOUCH);
+        data.write(new byte[]{(byte) 0xE8, 0x07});
+        data.writeByte(4);
+        data.writeByte(0);
+        data.writeFloat(42.5f);
+
+        GestureTrace read = GestureTrace.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(1, read.size());
+        assertEquals(1000, read.getTime(0));
+        assertEquals(2, read.getArg0(0));
+        assertEquals(1, read.getPointerCount(0));
+        assertEquals(0, read.getHistorySize(0));
+        assertEquals(42.5f, read.getY(0, 0, 0), 0f);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void endTouch_missingPosition_throws() throws Exception {
+        GestureTrace trace = new GestureTrace();
+        trace.beginTouch(0, 2);
+        trace.addPointer(0);
+        trace.addPointer(1);
+        trace.addSample(0);
+        trace.addPosition(1f, 2f);
+        trace.endTouch();
+    }
+
+    @Test(expected = IOException.class)
+    public void read_badMagic_throws() throws Exception {
+        GestureTrace.readFrom(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5}));
+    }
+}
@@ -0,0 +1,484 @@
+package com.pullrefresh;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 在JVM上直接驱动拖动引擎，不需要模拟器.
+ */
+public class PullEngineTest {
+    private static final int HEADER_HEIGHT = 100;
+    private static final int FOOTER_HEIGHT = 80;
+    private static final long MILLIS = 1000000L;
+
+    private FakeHost mHost;
+    private PullEngine mEngine;
+    private long mFrameNanos;
+
+    @Before
+    public void setUp() throws Exception {
+        mHost = new FakeHost();
+        mEngine = new PullEngine(mHost);
+        mEngine.setHasHeader(true);
+        mEngine.setHasFooter(true);
+        mEngine.setHeaderHeight(HEADER_HEIGHT);
+        mEngine.setFooterHeight(FOOTER_HEIGHT);
+    }
+
+    @Test
+    public void pullDown_belowTrigger_resets() throws Exception {
+        mEngine.dragBy(80);
+        assertEquals(-40, mEngine.getOffset());
+        assertEquals(PullState.PULL_TO_REFRESH, mHost.pullDownState);
+        assertEquals(0.4f, mHost.pullDownFraction, 0.001f);
+
+        mEngine.finishDrag();
+        assertEquals(40, mHost.smoothScrollDy);
+        assertEquals(PullState.RESET, mHost.pullDownState);
+        assertEquals(0, mHost.refreshCount);
+    }
+
+    @Test
+    public void pullDown_pastTrigger_refreshes() throws Exception {
+        mEngine.dragBy(300);
+        assertEquals(PullState.RELEASE_TO_REFRESH, mHost.pullDownState);
+
+        mEngine.finishDrag();
+        assertEquals(150 - HEADER_HEIGHT, mHost.smoothScrollDy);
+        assertEquals(PullState.REFRESHING, mHost.pullDownState);
+        assertTrue(mEngine.isRefreshing());
+        assertEquals(1, mHost.refreshCount);
+
+        mEngine.onRefreshComplete();
+        assertEquals(PullState.REFRESH_SUCCESS, mHost.pullDownState);
+        mEngine.resetPullDown();
+        assertFalse(mEngine.isRefreshing());
+        assertEquals(PullState.RESET, mHost.pullDownState);
+    }
+
+    @Test
+    public void pullUp_pastTrigger_loadsMore() throws Exception {
+        mEngine.dragBy(-200);
+        assertEquals(100, mEngine.getOffset());
+        assertEquals(PullState.RELEASE_TO_REFRESH, mHost.pullUpState);
+
+        mEngine.finishDrag();
+        assertEquals(-100 + FOOTER_HEIGHT, mHost.smoothScrollDy);
+        assertTrue(mEngine.isLoading());
+        assertEquals(1, mHost.loadMoreCount);
+    }
+
+    @Test
+    public void loadMoreFailed_showsFailUntilReset() throws Exception {
+        mEngine.dragBy(-200);
+        mEngine.finishDrag();
+        int loadToken = mEngine.getLoadMoreToken();
+
+        assertFalse(mEngine.onLoadMoreFailed(loadToken + 1));
+        assertTrue(mEngine.onLoadMoreFailed(loadToken));
+        assertEquals(PullState.REFRESH_FAIL, mHost.pullUpState);
+        assertFalse(mEngine.isTokenActive(loadToken));
+        assertFalse(mEngine.onLoadMoreComplete(loadToken, 0));
+        //失败提示收起之前不会再触发加载
+        assertTrue(mEngine.isLoading());
+
+        mEngine.resetPullUp();
+        assertFalse(mEngine.isLoading());
+        assertEquals(PullState.RESET, mHost.pullUpState);
+    }
+
+    @Test
+    public void finishDrag_whileRefreshing_doesNotRetrigger() throws Exception {
+        mEngine.dragBy(300);
+        mEngine.finishDrag();
+        mHost.offset = -HEADER_HEIGHT;
+        mEngine.offsetTo(-HEADER_HEIGHT);
+        mEngine.dragBy(300);
+        mEngine.finishDrag();
+        assertEquals(1, mHost.refreshCount);
+        //回到刷新位置
+        assertEquals(150, mHost.smoothScrollDy);
+        assertEquals(PullState.REFRESHING, mHost.pullDownState);
+    }
+
+    @Test
+    public void refresh_cancelsLoadMoreAndDropsStaleCompletion() throws Exception {
+        mEngine.dragBy(-200);
+        mEngine.finishDrag();
+        int loadToken = mEngine.getLoadMoreToken();
+        assertTrue(mEngine.isTokenActive(loadToken));
+
+        mEngine.offsetTo(0);
+        mEngine.dragBy(300);
+        mEngine.finishDrag();
+        assertEquals(loadToken, mHost.cancelledToken);
+        assertFalse(mEngine.isLoading());
+        assertFalse(mEngine.isTokenActive(loadToken));
+        assertEquals(PullState.RESET, mHost.pullUpState);
+
+        //被取消的加载结果回来了，丢掉
+        assertFalse(mEngine.onLoadMoreComplete(loadToken, 0));
+        int refreshToken = mEngine.getRefreshToken();
+        assertNotEquals(loadToken, refreshToken);
+        assertTrue(mEngine.onRefreshComplete(refreshToken));
+        assertFalse(mEngine.onRefreshComplete(refreshToken));
+        assertEquals(PullState.REFRESH_SUCCESS, mHost.pullDownState);
+    }
+
+    @Test
+    public void refreshFailed_dispatchesFailOnce() throws Exception {
+        mEngine.dragBy(300);
+        mEngine.finishDrag();
+        int token = mEngine.getRefreshToken();
+        assertTrue(mEngine.onRefreshFailed(token));
+        assertEquals(PullState.REFRESH_FAIL, mHost.pullDownState);
+        //失败之后晚到的成功结果丢掉
+        assertFalse(mEngine.onRefreshComplete(token));
+        assertEquals(PullState.REFRESH_FAIL, mHost.pullDownState);
+        assertTrue(mEngine.isRefreshing());
+
+        mEngine.resetPullDown();
+        assertFalse(mEngine.isRefreshing());
+    }
+
+    @Test
+    public void edgeTriggered_dispatchesStateOnlyOnTransitions() throws Exception {
+        mEngine.setEdgeTriggered(true);
+        for (int i = 0; i < 20; i++) {
+            mEngine.dragBy(10);
+        }
+        //PULL_TO_REFRESH -> RELEASE_TO_REFRESH
+        assertEquals(2, mHost.stateChangeCount);
+        assertEquals(PullState.RELEASE_TO_REFRESH, mHost.pullDownState);
+        assertEquals(20, mHost.progressCount);
+        assertEquals(1f, mHost.progress, 0.001f);
+    }
+
+    @Test
+    public void legacyDispatch_dispatchesStateEveryMove() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            mEngine.dragBy(10);
+        }
+        assertEquals(20, mHost.stateChangeCount);
+        assertEquals(0, mHost.progressCount);
+    }
+
+    @Test
+    public void absorbFling_bouncesHeader() throws Exception {
+        mEngine.setFlingDeceleration(10000);
+        assertTrue(mEngine.absorbFling(-1000));
+        //1000²/(2*10000)
+        assertEquals(-50, mHost.bouncePeak);
+        assertEquals(PullState.PULL_TO_REFRESH, mHost.pullDownState);
+
+        mEngine.endFling();
+        assertEquals(PullState.RESET, mHost.pullDownState);
+        assertEquals(0, mHost.refreshCount);
+    }
+
+    @Test
+    public void absorbFling_cappedAtFooterHeight() throws Exception {
+        mEngine.setFlingDeceleration(10000);
+        assertTrue(mEngine.absorbFling(10000));
+        assertEquals(FOOTER_HEIGHT, mHost.bouncePeak);
+    }
+
+    @Test
+    public void absorbFling_startsLoadMore() throws Exception {
+        mEngine.setFlingDeceleration(10000);
+        mEngine.setFlingLoadMoreEnabled(true);
+        assertTrue(mEngine.absorbFling(500));
+        assertTrue(mEngine.isLoading());
+        assertEquals(FOOTER_HEIGHT, mHost.smoothScrollDy);
+        assertEquals(1, mHost.loadMoreCount);
+        assertFalse(mEngine.absorbFling(500));
+    }
+
+    @Test
+    public void contentScrolled_withinPrefetchThreshold_loadsOnce() throws Exception {
+        mEngine.setScrollLoadEnabled(true);
+        mEngine.setPrefetchThreshold(3, 200);
+        assertFalse(mEngine.onContentScrolled(10, -1, 0));
+        assertTrue(mEngine.onContentScrolled(3, -1, 0));
+        assertFalse(mEngine.onContentScrolled(2, -1, 0));
+        assertEquals(1, mHost.loadMoreCount);
+        assertEquals(PullState.REFRESHING, mHost.pullUpState);
+
+        mEngine.resetPullUp();
+        assertTrue(mEngine.onContentScrolled(-1, 150, 0));
+        assertEquals(2, mHost.loadMoreCount);
+    }
+
+    @Test
+    public void contentScrolled_scrollLoadDisabled_ignored() throws Exception {
+        assertFalse(mEngine.onContentScrolled(0, 0, 0));
+        assertEquals(0, mHost.loadMoreCount);
+    }
+
+    @Test
+    public void adaptivePrefetch_fastScroll_loadsEarlier() throws Exception {
+        mEngine.setScrollLoadEnabled(true);
+        mEngine.setPrefetchThreshold(0, 100);
+        mEngine.setAdaptivePrefetchEnabled(true);
+        //每帧100px，约6000px/s
+        int pixelsBelow = scrollUntilLoad(10000, 100);
+        assertTrue("loaded at " + pixelsBelow, pixelsBelow > 1000);
+
+        //加载耗时变长，同样的速度提前量更大
+        int before = mEngine.getEffectivePrefetchDistance();
+        mEngine.onLoadMoreComplete(mFrameNanos + 900 * MILLIS);
+        mEngine.resetPullUp();
+        assertTrue(mEngine.getEffectivePrefetchDistance() > before);
+    }
+
+    @Test
+    public void adaptivePrefetch_cancelledLoad_notTimedByLaterLoad() throws Exception {
+        mEngine.setScrollLoadEnabled(true);
+        mEngine.setPrefetchThreshold(0, 100);
+        mEngine.setAdaptivePrefetchEnabled(true);
+        scrollUntilLoad(10000, 100);
+        int before = mEngine.getEffectivePrefetchDistance();
+        assertTrue(mEngine.cancelLoadMore());
+
+        //上拉开始的加载按自己的开始时间计算，耗时100ms比默认的短
+        mEngine.dragBy(-200);
+        mEngine.finishDrag();
+        assertTrue(mEngine.isLoading());
+        mEngine.onLoadMoreComplete(System.nanoTime() + 100 * MILLIS);
+        mEngine.resetPullUp();
+        assertTrue(mEngine.getEffectivePrefetchDistance() < before);
+    }
+
+    @Test
+    public void adaptivePrefetch_slowScroll_usesFixedThreshold() throws Exception {
+        mEngine.setScrollLoadEnabled(true);
+        mEngine.setPrefetchThreshold(0, 100);
+        mEngine.setAdaptivePrefetchEnabled(true);
+        //每帧2px
+        int pixelsBelow = scrollUntilLoad(300, 2);
+        assertTrue("loaded at " + pixelsBelow, pixelsBelow <= 100 && pixelsBelow > 90);
+    }
+
+    /**
+     * 按16ms一帧匀速滚动，返回开始加载时下面还剩的像素
+     */
+    private int scrollUntilLoad(int pixelsBelow, int step) {
+        while (pixelsBelow > 0) {
+            mFrameNanos += 16 * MILLIS;
+            pixelsBelow -= step;
+            if (mEngine.onContentScrolled(-1, pixelsBelow, mFrameNanos)) {
+                return pixelsBelow;
+            }
+        }
+        return pixelsBelow;
+    }
+
+    @Test
+    public void disabledDirection_cannotDrag() throws Exception {
+        mEngine.setPullRefreshEnabled(false);
+        assertFalse(mEngine.canDrag(10));
+        assertTrue(mEngine.canDrag(-10));
+    }
+
+    @Test
+    public void nestedScroll_overscrollThenScrollBack() throws Exception {
+        mEngine.onNestedScrollAccepted();
+        assertEquals(-60, mEngine.onNestedScroll(-60));
+        assertEquals(-30, mEngine.getOffset());
+
+        assertEquals(40, mEngine.onNestedPreScroll(40));
+        assertEquals(-10, mEngine.getOffset());
+
+        mEngine.onStopNestedScroll();
+        assertEquals(10, mHost.smoothScrollDy);
+        assertEquals(PullState.RESET, mHost.pullDownState);
+    }
+
+    @Test
+    public void nestedScroll_rubberBandPullThenRetract_returnsToZero() throws Exception {
+        mEngine.setResistanceCurve(ResistanceCurve.rubberBand(0.5f, 400));
+        mEngine.onNestedScrollAccepted();
+        for (int i = 0; i < 30; i++) {
+            mEngine.onNestedScroll(-10);
+        }
+        assertTrue(mEngine.getOffset() < 0);
+
+        //同样的手指距离收不回来，接着收回直到0，而不是把剩下的交给子View
+        for (int i = 0; i < 30; i++) {
+            assertEquals(10, mEngine.onNestedPreScroll(10));
+        }
+        assertTrue(mEngine.getOffset() < 0);
+        int steps = 0;
+        while (mEngine.getOffset() != 0 && steps++ < 100) {
+            assertTrue(mEngine.onNestedPreScroll(10) > 0);
+        }
+        assertEquals(0, mEngine.getOffset());
+        //收回到0之后子View自己滚动
+        assertEquals(0, mEngine.onNestedPreScroll(10));
+        mEngine.onStopNestedScroll();
+        assertEquals(0, mHost.smoothScrollDy);
+    }
+
+    @Test
+    public void nestedScroll_stopWhilePulled_settles() throws Exception {
+        mEngine.setResistanceCurve(ResistanceCurve.rubberBand(0.5f, 400));
+        mEngine.onNestedScrollAccepted();
+        for (int i = 0; i < 30; i++) {
+            mEngine.onNestedScroll(-10);
+        }
+        for (int i = 0; i < 30; i++) {
+            mEngine.onNestedPreScroll(10);
+        }
+        final int offset = mEngine.getOffset();
+        assertTrue(offset < 0);
+        mEngine.onStopNestedScroll();
+        assertEquals(-offset, mHost.smoothScrollDy);
+        assertEquals(PullState.RESET, mHost.pullDownState);
+    }
+
+    @Test
+    public void nestedScroll_childCanScroll_ignored() throws Exception {
+        mHost.canChildScrollUp = true;
+        mEngine.onNestedScrollAccepted();
+        assertEquals(0, mEngine.onNestedScroll(-60));
+        assertEquals(0, mEngine.getOffset());
+    }
+
+    @Test
+    public void tinyDrags_accumulateSubPixelDistance() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            mEngine.dragBy(0.25f);
+        }
+        //手指移动了250，乘以DRAG_RATE
+        assertEquals(-125, mEngine.getOffset());
+        assertEquals(-125, mHost.offset);
+    }
+
+    @Test
+    public void tinyNestedScrolls_accumulateSubPixelDistance() throws Exception {
+        mEngine.onNestedScrollAccepted();
+        for (int i = 0; i < 1000; i++) {
+            mEngine.onNestedScroll(-1);
+        }
+        assertEquals(-500, mEngine.getOffset());
+        //收回时和拉出时一样不丢距离
+        for (int i = 0; i < 1000; i++) {
+            mEngine.onNestedPreScroll(1);
+        }
+        assertEquals(0, mEngine.getOffset());
+    }
+
+    @Test
+    public void rubberBand_neverPassesMaxDistance() throws Exception {
+        mEngine.setResistanceCurve(ResistanceCurve.rubberBand(0.5f, 200));
+        for (int i = 0; i < 100; i++) {
+            mEngine.dragBy(20);
+        }
+        assertTrue(mEngine.getOffset() < 0);
+        assertTrue(mEngine.getOffset() > -200);
+    }
+
+    @Test
+    public void accumulatedDrag_movesOnceAndMatchesPerEventDrag() throws Exception {
+        mEngine.setResistanceCurve(ResistanceCurve.rubberBand(0.5f, 300));
+        for (int i = 0; i < 8; i++) {
+            mEngine.dragBy(30);
+        }
+        final int expected = mEngine.getOffset();
+        mEngine.offsetTo(0);
+
+        mHost.scrollCount = 0;
+        for (int i = 0; i < 8; i++) {
+            mEngine.accumulateDrag(30);
+        }
+        assertEquals(0, mHost.scrollCount);
+        assertTrue(mEngine.flushDrag());
+        assertEquals(1, mHost.scrollCount);
+        assertEquals(expected, mEngine.getOffset(), 1);
+        assertFalse(mEngine.flushDrag());
+    }
+
+    private static class FakeHost implements PullEngine.Host {
+        int offset;
+        int smoothScrollDy;
+        boolean canChildScrollUp;
+        boolean canChildScrollDown;
+        int pullDownState = -1;
+        float pullDownFraction;
+        int pullUpState = -1;
+        int stateChangeCount;
+        float progress;
+        int progressCount;
+        int bouncePeak;
+        int refreshCount;
+        int loadMoreCount;
+        int cancelledToken;
+        int scrollCount;
+
+        @Override
+        public void scrollToOffset(int offset) {
+            this.offset = offset;
+            scrollCount++;
+        }
+
+        @Override
+        public void smoothScrollBy(int dy) {
+            smoothScrollDy = dy;
+        }
+
+        @Override
+        public boolean canChildScrollUp() {
+            return canChildScrollUp;
+        }
+
+        @Override
+        public boolean canChildScrollDown() {
+            return canChildScrollDown;
+        }
+
+        @Override
+        public void onPullDownStateChanged(int state, float fraction) {
+            pullDownState = state;
+            pullDownFraction = fraction;
+            stateChangeCount++;
+        }
+
+        @Override
+        public void onPullUpStateChanged(int state, float fraction) {
+            pullUpState = state;
+            stateChangeCount++;
+        }
+
+        @Override
+        public void onPullDownProgress(float fraction) {
+            progress = fraction;
+            progressCount++;
+        }
+
+        @Override
+        public void onPullUpProgress(float fraction) {
+        }
+
+        @Override
+        public void bounce(int peakOffset) {
+            bouncePeak = peakOffset;
+        }
+
+        @Override
+        public void onRefresh(int token) {
+            refreshCount++;
+        }
+
+        @Override
+        public void onLoadMore(int token) {
+            loadMoreCount++;
+        }
+
+        @Override
+        public void onLoadMoreCancelled(int token) {
+            cancelledToken = token;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.pullrefresh;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ResistanceCurveTest {
+    private static final float DELTA = 1e-3f;
+
+    @Test
+    public void linear_isConstant() throws Exception {
+        ResistanceCurve curve = ResistanceCurve.linear(0.5f);
+        assertEquals(0.5f, curve.rate(0), DELTA);
+        assertEquals(0.5f, curve.rate(10000), DELTA);
+    }
+
+    @Test
+    public void rubberBand_lookupMatchesCurve() throws Exception {
+        ResistanceCurve curve = ResistanceCurve.rubberBand(0.5f, 400);
+        for (float distance = 0; distance < 400; distance += 7.3f) {
+            final float remaining = 1 - distance / 400;
+            assertEquals(0.5f * remaining * remaining, curve.rate(distance), DELTA);
+        }
+        assertEquals(0, curve.rate(400), DELTA);
+        assertEquals(0, curve.rate(1000), DELTA);
+    }
+
+    @Test
+    public void logarithmic_lookupMatchesCurve() throws Exception {
+        ResistanceCurve curve = ResistanceCurve.logarithmic(0.5f, 200);
+        for (float distance = 0; distance < curve.getMaxDistance(); distance += 11.1f) {
+            assertEquals(0.5f * Math.exp(-distance / 200), curve.rate(distance), DELTA);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveRate_throws() throws Exception {
+        ResistanceCurve.rubberBand(0, 400);
+    }
+}
@@ -0,0 +1,72 @@
+package com.pullrefresh;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SettlerTest {
+    private static final long FRAME_NANOS = 16666667L;
+
+    @Test
+    public void durationSettler_scalesWithDistance() throws Exception {
+        DurationSettler settler = new DurationSettler(100, 500, 400);
+        assertEquals(500000000L, settler.durationFor(400));
+        assertEquals(500000000L, settler.durationFor(1000));
+        assertEquals(250000000L, settler.durationFor(100));
+        assertEquals(100000000L, settler.durationFor(1));
+    }
+
+    @Test
+    public void durationSettler_reachesTarget() throws Exception {
+        DurationSettler settler = new DurationSettler(100, 500, 400);
+        settler.start(-300, 0, 0);
+        int frames = runToEnd(settler);
+        assertEquals(0, settler.getCurrentOffset());
+        assertTrue(frames <= 500000000L / FRAME_NANOS + 1);
+    }
+
+    @Test
+    public void springSettler_criticallyDamped_noOvershoot() throws Exception {
+        SpringSettler settler = new SpringSettler(300, 1f);
+        settler.start(-300, 0, 0);
+        long time = 0;
+        while (settler.computeOffset(time += FRAME_NANOS)) {
+            assertTrue(settler.getCurrentOffset() <= 0);
+        }
+        assertEquals(0, settler.getCurrentOffset());
+    }
+
+    @Test
+    public void springSettler_sameTrajectoryAtDifferentFrameRates() throws Exception {
+        SpringSettler slow = new SpringSettler(300, 1f);
+        SpringSettler fast = new SpringSettler(300, 1f);
+        slow.start(-300, 0, 0);
+        fast.start(-300, 0, 0);
+        slow.computeOffset(FRAME_NANOS * 6);
+        for (int i = 1; i <= 24; i++) {
+            fast.computeOffset(FRAME_NANOS * 6 * i / 24);
+        }
+        assertEquals(slow.getCurrentOffset(), fast.getCurrentOffset(), 2);
+    }
+
+    @Test
+    public void abort_stopsAtCurrentOffset() throws Exception {
+        SpringSettler settler = new SpringSettler(300, 1f);
+        settler.start(-300, 0, 0);
+        settler.computeOffset(FRAME_NANOS);
+        int offset = settler.getCurrentOffset();
+        settler.abort();
+        assertTrue(settler.isFinished());
+        assertFalse(settler.computeOffset(FRAME_NANOS * 2));
+        assertEquals(offset, settler.getCurrentOffset());
+    }
+
+    private static int runToEnd(Settler settler) {
+        int frames = 0;
+        long time = 0;
+        while (settler.computeOffset(time += FRAME_NANOS)) {
+            frames++;
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,50 @@
+package com.pullrefresh;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 匀速移动时往前推一帧，停下、掉头或采样太旧时不预测.
+ */
+public class TouchPredictorTest {
+
+    @Test
+    public void steadyMove_predictsOneFrameAhead() throws Exception {
+        TouchPredictor predictor = new TouchPredictor();
+        for (int i = 0; i < 4; i++) {
+            predictor.addSample(1000 + i * 8, 100 + i * 8f);
+        }
+        //1px/ms
+        assertEquals(16f, predictor.predictLead(16), 0.001f);
+
+        predictor.setMaxDistance(10);
+        assertEquals(10f, predictor.predictLead(16), 0.001f);
+    }
+
+    @Test
+    public void reversalOrTooFewSamples_predictsNothing() throws Exception {
+        TouchPredictor predictor = new TouchPredictor();
+        predictor.addSample(1000, 100);
+        predictor.addSample(1008, 110);
+        assertEquals(0f, predictor.predictLead(16), 0f);
+
+        predictor.addSample(1016, 120);
+        assertTrue(predictor.predictLead(16) > 0);
+
+        predictor.addSample(1024, 115);
+        assertEquals(0f, predictor.predictLead(16), 0f);
+    }
+
+    @Test
+    public void staleSamples_areIgnored() throws Exception {
+        TouchPredictor predictor = new TouchPredictor();
+        predictor.addSample(1000, 100);
+        predictor.addSample(1008, 110);
+        predictor.addSample(1100, 120);
+        assertEquals(0f, predictor.predictLead(16), 0f);
+
+        predictor.reset();
+        assertEquals(0f, predictor.predictLead(16), 0f);
+    }
+}
@@ -0,0 +1,33 @@
+package com.pullrefresh.testing;
+
+/**
+ * 一次拉动允许的布局和重绘的上限，没有设置的项不检查.
+ * <p>不检查内存分配：整次拉动的分配里大部分是Robolectric自己的，每个事件的分配要在
+ * pullrefresh-benchmark里用gc profiler看gc.alloc.rate.norm。</p>
+ */
+public final class PullBudget {
+    int maxRequestLayout = Integer.MAX_VALUE;
+    int maxMeasure = Integer.MAX_VALUE;
+    int maxLayout = Integer.MAX_VALUE;
+    int maxInvalidate = Integer.MAX_VALUE;
+
+    public PullBudget requestLayout(int max) {
+        maxRequestLayout = max;
+        return this;
+    }
+
+    public PullBudget measure(int max) {
+        maxMeasure = max;
+        return this;
+    }
+
+    public PullBudget layout(int max) {
+        maxLayout = max;
+        return this;
+    }
+
+    public PullBudget invalidate(int max) {
+        maxInvalidate = max;
+        return this;
+    }
+}
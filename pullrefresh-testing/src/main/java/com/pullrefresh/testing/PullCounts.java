@@ -0,0 +1,65 @@
+package com.pullrefresh.testing;
+
+/**
+ * 一次拉动引起的布局和重绘的次数.
+ * <p>requestLayout和invalidate统计的是到达PullToRefreshLayout的请求，
+ * 同一帧里重复的requestLayout不会再往上传，所以基本等于引起的布局次数；
+ * measure和layout统计PullToRefreshLayout、Header和Footer三个View的onMeasure、onLayout。</p>
+ */
+public final class PullCounts {
+    int requestLayoutCount;
+    int measureCount;
+    int layoutCount;
+    int invalidateCount;
+
+    void reset() {
+        requestLayoutCount = 0;
+        measureCount = 0;
+        layoutCount = 0;
+        invalidateCount = 0;
+    }
+
+    public int getRequestLayoutCount() {
+        return requestLayoutCount;
+    }
+
+    public int getMeasureCount() {
+        return measureCount;
+    }
+
+    public int getLayoutCount() {
+        return layoutCount;
+    }
+
+    public int getInvalidateCount() {
+        return invalidateCount;
+    }
+
+    /**
+     * 检查是否超出预算，超出时抛出AssertionError，列出所有超出的项
+     */
+    public void assertWithin(PullBudget budget) {
+        StringBuilder exceeded = new StringBuilder();
+        check(exceeded, "requestLayout", requestLayoutCount, budget.maxRequestLayout);
+        check(exceeded, "onMeasure", measureCount, budget.maxMeasure);
+        check(exceeded, "onLayout", layoutCount, budget.maxLayout);
+        check(exceeded, "invalidate", invalidateCount, budget.maxInvalidate);
+        if (exceeded.length() > 0) {
+            throw new AssertionError("Pull budget exceeded:" + exceeded + " (" + this + ")");
+        }
+    }
+
+    private static void check(StringBuilder out, String name, int actual, int max) {
+        if (actual > max) {
+            out.append(' ').append(name).append(' ').append(actual).append(" > ").append(max);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "requestLayout=" + requestLayoutCount
+                + ", onMeasure=" + measureCount
+                + ", onLayout=" + layoutCount
+                + ", invalidate=" + invalidateCount;
+    }
+}
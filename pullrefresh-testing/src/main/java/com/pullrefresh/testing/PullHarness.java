@@ -0,0 +1,210 @@
+package com.pullrefresh.testing;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Rect;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.widget.ListView;
+
+import com.pullrefresh.HeaderLoadingLayout;
+import com.pullrefresh.PullToRefreshLayout;
+import com.pullrefresh.R;
+import com.pullrefresh.RotateLoadingLayout;
+
+import org.robolectric.Robolectric;
+import org.robolectric.util.Scheduler;
+
+/**
+ * 在Robolectric里用默认的HeaderLoadingLayout和RotateLoadingLayout搭一个PullToRefreshLayout，
+ * 跑脚本化的拉动，统计每次拉动引起的布局和重绘.
+ * <pre>
+ * PullHarness harness = PullHarness.create();
+ * harness.getLayout().setEdgeTriggeredDispatch(true);
+ * harness.pullDown(400).assertWithin(new PullBudget().requestLayout(10));
+ * </pre>
+ * 一次拉动包括按下、{@link #MOVE_EVENTS}个移动事件、松手、平滑滚动，
+ * 触发了刷新或加载更多时还包括完成后的结果显示和复位。
+ */
+public final class PullHarness {
+    /**
+     * 一次拉动的移动事件数
+     */
+    public static final int MOVE_EVENTS = 40;
+    private static final long FRAME_MILLIS = 16;
+    //足够平滑滚动、结果停留和复位都结束
+    private static final long SETTLE_MILLIS = 2000;
+    private static final float EDGE_Y = 50;
+
+    private final CountingLayout mLayout;
+    private final PullCounts mCounts = new PullCounts();
+    private final Scheduler mScheduler = Robolectric.getForegroundThreadScheduler();
+
+    public static PullHarness create() {
+        return new PullHarness(Robolectric.setupActivity(Activity.class));
+    }
+
+    private PullHarness(Activity activity) {
+        mLayout = new CountingLayout(activity, mCounts);
+        HeaderLoadingLayout header = new CountingHeader(activity, mCounts);
+        header.setId(R.id.swipe_refresh_header);
+        ListView target = new ListView(activity);
+        target.setId(R.id.swipe_target);
+        RotateLoadingLayout footer = new CountingFooter(activity, mCounts);
+        footer.setId(R.id.swipe_load_more_footer);
+        mLayout.addView(header, ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        mLayout.addView(target, ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT);
+        mLayout.addView(footer, ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        mLayout.finishInflate();
+        activity.setContentView(mLayout);
+        mScheduler.advanceBy(SETTLE_MILLIS);
+    }
+
+    public PullToRefreshLayout getLayout() {
+        return mLayout;
+    }
+
+    /**
+     * 从顶部往下拉
+     * @param distance 手指移动的距离
+     */
+    public PullCounts pullDown(int distance) {
+        return pull(EDGE_Y, distance);
+    }
+
+    /**
+     * 从底部往上拉
+     * @param distance 手指移动的距离
+     */
+    public PullCounts pullUp(int distance) {
+        return pull(mLayout.getHeight() - EDGE_Y, -distance);
+    }
+
+    private PullCounts pull(float startY, int distance) {
+        final MotionEvent[] events = new MotionEvent[MOVE_EVENTS + 2];
+        final long downTime = SystemClock.uptimeMillis() + FRAME_MILLIS;
+        final float x = mLayout.getWidth() / 2f;
+        final float step = (float) distance / MOVE_EVENTS;
+        events[0] = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, x, startY, 0);
+        for (int i = 1; i <= MOVE_EVENTS; i++) {
+            events[i] = MotionEvent.obtain(downTime, downTime + i * FRAME_MILLIS,
+                    MotionEvent.ACTION_MOVE, x, startY + i * step, 0);
+        }
+        events[MOVE_EVENTS + 1] = MotionEvent.obtain(downTime, downTime + (MOVE_EVENTS + 1) * FRAME_MILLIS,
+                MotionEvent.ACTION_UP, x, startY + distance, 0);
+
+        mCounts.reset();
+        for (MotionEvent event : events) {
+            mScheduler.advanceTo(event.getEventTime());
+            mLayout.dispatchTouchEvent(event);
+        }
+        mScheduler.advanceBy(SETTLE_MILLIS);
+        if (mLayout.getRefreshToken() != 0) {
+            mLayout.setPullDownRefreshComplete();
+            mScheduler.advanceBy(SETTLE_MILLIS);
+        }
+        if (mLayout.getLoadMoreToken() != 0) {
+            mLayout.setPullUpRefreshComplete();
+            mScheduler.advanceBy(SETTLE_MILLIS);
+        }
+
+        for (MotionEvent event : events) {
+            event.recycle();
+        }
+        return mCounts;
+    }
+
+    private static class CountingLayout extends PullToRefreshLayout {
+        private final PullCounts mCounts;
+
+        CountingLayout(Context context, PullCounts counts) {
+            super(context);
+            mCounts = counts;
+        }
+
+        void finishInflate() {
+            onFinishInflate();
+        }
+
+        @Override
+        public void requestLayout() {
+            //构造函数里也会调用，这时还没有mCounts
+            if (mCounts != null) {
+                mCounts.requestLayoutCount++;
+            }
+            super.requestLayout();
+        }
+
+        @Override
+        public void invalidate() {
+            if (mCounts != null) {
+                mCounts.invalidateCount++;
+            }
+            super.invalidate();
+        }
+
+        @Override
+        public ViewParent invalidateChildInParent(int[] location, Rect dirty) {
+            if (mCounts != null) {
+                mCounts.invalidateCount++;
+            }
+            return super.invalidateChildInParent(location, dirty);
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            mCounts.measureCount++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int l, int t, int r, int b) {
+            mCounts.layoutCount++;
+            super.onLayout(changed, l, t, r, b);
+        }
+    }
+
+    private static class CountingHeader extends HeaderLoadingLayout {
+        private final PullCounts mCounts;
+
+        CountingHeader(Context context, PullCounts counts) {
+            super(context);
+            mCounts = counts;
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            mCounts.measureCount++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int l, int t, int r, int b) {
+            mCounts.layoutCount++;
+            super.onLayout(changed, l, t, r, b);
+        }
+    }
+
+    private static class CountingFooter extends RotateLoadingLayout {
+        private final PullCounts mCounts;
+
+        CountingFooter(Context context, PullCounts counts) {
+            super(context);
+            mCounts = counts;
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            mCounts.measureCount++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int l, int t, int r, int b) {
+            mCounts.layoutCount++;
+            super.onLayout(changed, l, t, r, b);
+        }
+    }
+}
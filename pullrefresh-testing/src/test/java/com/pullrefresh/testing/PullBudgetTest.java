@@ -0,0 +1,57 @@
+package com.pullrefresh.testing;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * 默认Header和Footer每次拉动的布局次数预算，超出时构建失败.
+ * <p>状态边沿触发时，只有状态切换才会setText、setVisibility，一次拉动只有几次布局；
+ * 每次移动都分发状态时，布局次数和移动事件数同一个量级。</p>
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 21)
+public class PullBudgetTest {
+    /**
+     * 一次拉动经过的状态：下拉、释放、刷新中、成功、复位，每个状态最多引起一两次布局
+     */
+    private static final PullBudget EDGE_TRIGGERED_BUDGET = new PullBudget()
+            .requestLayout(10)
+            .measure(36)
+            .layout(36);
+
+    private PullHarness mHarness;
+
+    @Before
+    public void setUp() throws Exception {
+        mHarness = PullHarness.create();
+        mHarness.getLayout().setEdgeTriggeredDispatch(true);
+    }
+
+    @Test
+    public void pullDownToRefresh_withinBudget() throws Exception {
+        mHarness.pullDown(mHarness.getLayout().getHeight() / 2).assertWithin(EDGE_TRIGGERED_BUDGET);
+    }
+
+    @Test
+    public void pullUpToLoad_withinBudget() throws Exception {
+        mHarness.pullUp(mHarness.getLayout().getHeight() / 2).assertWithin(EDGE_TRIGGERED_BUDGET);
+    }
+
+    @Test
+    public void shortPull_withinBudget() throws Exception {
+        mHarness.pullDown(40).assertWithin(EDGE_TRIGGERED_BUDGET);
+    }
+
+    @Test
+    public void legacyDispatch_exceedsBudget() throws Exception {
+        mHarness.getLayout().setEdgeTriggeredDispatch(false);
+        PullCounts counts = mHarness.pullDown(mHarness.getLayout().getHeight() / 2);
+        //每次移动都setText，布局请求和移动事件一样多
+        assertTrue(counts.toString(), counts.getRequestLayoutCount() > EDGE_TRIGGERED_BUDGET.maxRequestLayout);
+    }
+}